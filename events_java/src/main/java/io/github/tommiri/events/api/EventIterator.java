@@ -0,0 +1,100 @@
+package io.github.tommiri.events.api;
+
+import io.github.tommiri.events.event.Event;
+import io.github.tommiri.events.event.EventReader;
+import io.github.tommiri.events.query.FilterKernel;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator over the events matching a query, read lazily from the events file.
+ * <p>
+ * The file is closed automatically once the last event has been read.
+ * Iterators that are abandoned early should be closed explicitly.
+ */
+public class EventIterator implements Iterator<Event>, AutoCloseable {
+    private final EventReader reader;
+    private final FilterKernel filter;
+    private Event next;
+    private boolean closed;
+
+    // Created through EventQuery.iterator()
+    EventIterator(EventReader reader, FilterKernel filter) {
+        this.reader = reader;
+        this.filter = filter;
+    }
+
+    /**
+     * Method for checking if there are more matching events
+     *
+     * @return true if there are more events, otherwise false
+     * @throws EventRepositoryException if reading the events file fails
+     */
+    @Override
+    public boolean hasNext() {
+        while (next == null && !closed) {
+            try {
+                Event event = reader.readEvent();
+                if (event == null) {
+                    close();
+                } else if (filter.matches(event)) {
+                    next = event;
+                }
+            } catch (IOException ioe) {
+                close();
+                throw new EventRepositoryException("Failed to read events", ioe);
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * Gets the next matching event.
+     *
+     * @return the event
+     * @throws NoSuchElementException   if there are no more events
+     * @throws EventRepositoryException if reading the events file fails
+     */
+    @Override
+    public Event next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Event event = next;
+        next = null;
+        return event;
+    }
+
+    /**
+     * Closes the events file. Further calls to {@link #hasNext()} return false.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } catch (IOException ioe) {
+            throw new EventRepositoryException("Failed to close events file", ioe);
+        }
+    }
+
+    /**
+     * Wraps this iterator into a sequential stream that closes the iterator when closed.
+     *
+     * @return the stream
+     */
+    public Stream<Event> stream() {
+        Spliterator<Event> spliterator = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+}
\ No newline at end of file
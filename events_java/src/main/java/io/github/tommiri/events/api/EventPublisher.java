@@ -0,0 +1,150 @@
+package io.github.tommiri.events.api;
+
+import io.github.tommiri.events.event.Event;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publisher that runs a query for each subscriber and emits the
+ * matching events only as fast as the subscriber requests them.
+ * <p>
+ * Events are read from the file on demand, so a slow subscriber
+ * never causes events to pile up in memory.
+ */
+class EventPublisher implements Flow.Publisher<Event> {
+    private final EventQuery query;
+    private final Executor executor;
+
+    EventPublisher(EventQuery query, Executor executor) {
+        this.query = query;
+        this.executor = executor != null ? executor : defaultExecutor();
+    }
+
+    /**
+     * Subscribes to the matching events. Each subscriber gets its own
+     * run of the query.
+     *
+     * @param subscriber the subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super Event> subscriber) {
+        EventSubscription subscription = new EventSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    // Use the common pool like SubmissionPublisher does, unless it cannot
+    // run tasks in parallel, in which case each task gets its own thread.
+    private static Executor defaultExecutor() {
+        if (ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return ForkJoinPool.commonPool();
+        }
+        return task -> new Thread(task).start();
+    }
+
+    // Subscription that emits events on the executor. Signals to the
+    // subscriber are serialized by only ever running one drain at a time.
+    private class EventSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Event> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private EventIterator iterator;
+        private boolean done;
+
+        EventSubscription(Flow.Subscriber<? super Event> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " events, must be positive");
+            } else {
+                // Add to the demand, capping it at unbounded
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!done) {
+                    emit();
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // Emit as many events as have been requested, finishing
+        // the subscription on cancellation, errors or end of results.
+        private void emit() {
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (invalidRequest != null) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            try {
+                if (iterator == null) {
+                    iterator = query.iterator();
+                }
+
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested) {
+                    if (cancelled) {
+                        finish();
+                        return;
+                    }
+                    if (!iterator.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+
+                if (requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+            } catch (RuntimeException e) {
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (iterator != null) {
+                try {
+                    iterator.close();
+                } catch (EventRepositoryException e) {
+                    // Nothing more to read, so a failure to close can be ignored
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,304 @@
+package io.github.tommiri.events.api;
+
+import io.github.tommiri.events.event.DateRange;
+import io.github.tommiri.events.event.Event;
+import io.github.tommiri.events.event.SearchIndex;
+import io.github.tommiri.events.query.FilterKernel;
+import io.github.tommiri.events.query.QueryNode;
+import io.github.tommiri.events.query.QueryPlanner;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+/**
+ * Fluent query over the events of an {@link EventRepository}.
+ * <p>
+ * Offers the same filters as the "list" and "delete" commands. All
+ * specified filters must match for an event to be included. Results are
+ * read from the events file lazily, so even huge result sets are
+ * processed in constant memory.
+ * <pre>{@code
+ * try (Stream<Event> events = repository.query()
+ *         .after(LocalDate.of(2020, 1, 1))
+ *         .categories("computing")
+ *         .stream()) {
+ *     events.forEach(System.out::println);
+ * }
+ * }</pre>
+ */
+public class EventQuery {
+    private final EventRepository repository;
+    private boolean today;
+    private LocalDate date;
+    private LocalDate beforeDate;
+    private LocalDate afterDate;
+    private Set<String> categories;
+    private boolean exclude;
+    private boolean noCategory;
+    private String descriptionPrefix;
+    private String search;
+
+    // Created through EventRepository.query()
+    EventQuery(EventRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Matches events happening today, as of when the query is run.
+     *
+     * @return this query
+     */
+    public EventQuery today() {
+        this.today = true;
+        return this;
+    }
+
+    /**
+     * Matches events on the given date.
+     *
+     * @param date the date
+     * @return this query
+     */
+    public EventQuery on(LocalDate date) {
+        this.date = Objects.requireNonNull(date);
+        return this;
+    }
+
+    /**
+     * Matches events before the given date.
+     *
+     * @param date the date, exclusive
+     * @return this query
+     */
+    public EventQuery before(LocalDate date) {
+        this.beforeDate = Objects.requireNonNull(date);
+        return this;
+    }
+
+    /**
+     * Matches events after the given date.
+     *
+     * @param date the date, exclusive
+     * @return this query
+     */
+    public EventQuery after(LocalDate date) {
+        this.afterDate = Objects.requireNonNull(date);
+        return this;
+    }
+
+    /**
+     * Matches events in any of the given categories.
+     *
+     * @param categories the categories
+     * @return this query
+     */
+    public EventQuery categories(String... categories) {
+        return categories(Arrays.asList(categories));
+    }
+
+    /**
+     * Matches events in any of the given categories.
+     *
+     * @param categories the categories
+     * @return this query
+     */
+    public EventQuery categories(Collection<String> categories) {
+        this.categories = new HashSet<>(categories);
+        return this;
+    }
+
+    /**
+     * Inverts the category filter, so that events in the
+     * given categories are excluded instead. Categories must also be
+     * given with {@link #categories}, like "--exclude" requires
+     * "--categories", or running the query fails.
+     *
+     * @return this query
+     */
+    public EventQuery excludeCategories() {
+        this.exclude = true;
+        return this;
+    }
+
+    /**
+     * Matches events with no category.
+     *
+     * @return this query
+     */
+    public EventQuery noCategory() {
+        this.noCategory = true;
+        return this;
+    }
+
+    /**
+     * Matches events with descriptions starting with the given string.
+     *
+     * @param prefix the start of the description
+     * @return this query
+     */
+    public EventQuery descriptionStartsWith(String prefix) {
+        this.descriptionPrefix = Objects.requireNonNull(prefix);
+        return this;
+    }
+
+    /**
+     * Matches events with descriptions containing all words of the given terms,
+     * ignoring case and punctuation.
+     *
+     * @param terms words to search for
+     * @return this query
+     */
+    public EventQuery search(String terms) {
+        if (SearchIndex.tokenize(terms).isEmpty()) {
+            throw new IllegalArgumentException("Search terms must contain at least one word");
+        }
+        this.search = terms;
+        return this;
+    }
+
+    /**
+     * Runs the query and returns the matching events as a lazily read stream.
+     * The stream holds the events file open and should be closed after use.
+     *
+     * @return stream of matching events in file order
+     * @throws EventRepositoryException if the events file cannot be read
+     * @throws IllegalStateException    if categories are excluded without any being given
+     */
+    public Stream<Event> stream() {
+        EventIterator iterator = iterator();
+        return iterator.stream();
+    }
+
+    /**
+     * Runs the query and returns an iterator over the matching events.
+     * The file is closed once the iterator is exhausted or closed.
+     *
+     * @return iterator over matching events in file order
+     * @throws EventRepositoryException if the events file cannot be read
+     * @throws IllegalStateException    if categories are excluded without any being given
+     */
+    public EventIterator iterator() {
+        return repository.iterator(this);
+    }
+
+    /**
+     * Returns a publisher that runs the query for each subscriber and
+     * emits matching events as they are requested, using the common
+     * fork-join pool.
+     *
+     * @return publisher of matching events in file order
+     */
+    public Flow.Publisher<Event> publisher() {
+        return new EventPublisher(this, null);
+    }
+
+    /**
+     * Returns a publisher that runs the query for each subscriber and
+     * emits matching events as they are requested.
+     *
+     * @param executor executor used to read and emit events
+     * @return publisher of matching events in file order
+     */
+    public Flow.Publisher<Event> publisher(Executor executor) {
+        return new EventPublisher(this, Objects.requireNonNull(executor));
+    }
+
+    /**
+     * Runs the query and collects the matching events into a list.
+     *
+     * @return list of matching events in file order
+     * @throws EventRepositoryException if the events file cannot be read
+     * @throws IllegalStateException    if categories are excluded without any being given
+     */
+    public List<Event> list() {
+        try (Stream<Event> events = stream()) {
+            return events.toList();
+        }
+    }
+
+    /**
+     * Runs the query and counts the matching events.
+     *
+     * @return number of matching events
+     * @throws EventRepositoryException if the events file cannot be read
+     * @throws IllegalStateException    if categories are excluded without any being given
+     */
+    public long count() {
+        try (Stream<Event> events = stream()) {
+            return events.count();
+        }
+    }
+
+    /**
+     * Deletes the matching events from the events file.
+     *
+     * @return number of deleted events
+     * @throws EventRepositoryException if the events file cannot be read or written
+     * @throws IllegalStateException    if categories are excluded without any being given
+     */
+    public long delete() {
+        return repository.delete(this);
+    }
+
+    /**
+     * Compiles the query into a filter, the same way the "list" and
+     * "delete" commands do. Values depending on when the query is run,
+     * such as today's date, are resolved once here.
+     *
+     * @param searchIndex index to answer searches with, or null to
+     *                    match search terms against descriptions directly
+     * @return the filter
+     * @throws IllegalStateException if categories are excluded without any being given
+     */
+    FilterKernel filter(SearchIndex searchIndex) {
+        if (exclude && categories == null) {
+            throw new IllegalStateException("Cannot exclude categories without specifying categories");
+        }
+
+        // Initialize query to null, matching all events
+        QueryNode query = null;
+
+        if (today) {
+            query = QueryNode.and(query, new QueryNode.DateIn(DateRange.on(LocalDate.now())));
+        }
+        if (date != null) {
+            query = QueryNode.and(query, new QueryNode.DateIn(DateRange.on(date)));
+        }
+        if (beforeDate != null) {
+            query = QueryNode.and(query, new QueryNode.DateIn(DateRange.before(beforeDate)));
+        }
+        if (afterDate != null) {
+            query = QueryNode.and(query, new QueryNode.DateIn(DateRange.after(afterDate)));
+        }
+        if (categories != null) {
+            QueryNode inCategories = new QueryNode.CategoryIn(categories);
+            query = QueryNode.and(query, exclude ? new QueryNode.Not(inCategories) : inCategories);
+        }
+        if (noCategory) {
+            query = QueryNode.and(query, new QueryNode.CategoryIn(Set.of("")));
+        }
+        if (descriptionPrefix != null) {
+            query = QueryNode.and(query, new QueryNode.DescriptionPrefix(descriptionPrefix));
+        }
+        if (search != null && searchIndex != null) {
+            query = QueryNode.and(query, new QueryNode.SearchResults(search, searchIndex.search(search)));
+        } else if (search != null) {
+            query = QueryNode.and(query, new QueryNode.SearchWords(search, SearchIndex.tokenize(search)));
+        }
+
+        // Simplifying orders the filters by cost, so searches are checked last
+        return FilterKernel.compile(query == null ? new QueryNode.Constant(true) : QueryPlanner.simplify(query));
+    }
+
+    /**
+     * Method for checking if the query searches descriptions
+     *
+     * @return true if search terms were given, otherwise false
+     */
+    boolean hasSearch() {
+        return search != null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,213 @@
+package io.github.tommiri.events.api;
+
+import io.github.tommiri.events.event.*;
+import io.github.tommiri.events.query.FilterKernel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+/**
+ * Library interface to an events file, for use from other JVM programs.
+ * <p>
+ * Unlike the command line program, the repository never prints anything
+ * or exits the process, and reports failures as
+ * {@link EventRepositoryException}s. Events are streamed from and to the
+ * file instead of being loaded, so memory use does not depend on the size
+ * of the file. Writes replace the file atomically, so concurrent readers
+ * always see either the old or the new contents. Writes through the same
+ * repository instance are serialized.
+ */
+public class EventRepository {
+    private final Path eventsPath;
+    private final Object writeLock = new Object();
+
+    /**
+     * Constructs a repository for the events file at the given path.
+     *
+     * @param eventsPath the path to the events file
+     * @throws EventRepositoryException if the file does not exist
+     */
+    public EventRepository(Path eventsPath) {
+        if (Files.notExists(eventsPath)) {
+            throw new EventRepositoryException(eventsPath + " file not found");
+        }
+        this.eventsPath = eventsPath;
+    }
+
+    /**
+     * Opens the repository for the user's events file in ~/.events/events.csv.
+     *
+     * @return the repository
+     * @throws EventRepositoryException if the file does not exist
+     */
+    public static EventRepository openDefault() {
+        String userHomeDirectory = System.getProperty("user.home");
+        if (userHomeDirectory == null || userHomeDirectory.isBlank()) {
+            throw new EventRepositoryException("Unable to determine user home directory");
+        }
+        return new EventRepository(Paths.get(userHomeDirectory, ".events", "events.csv"));
+    }
+
+    /**
+     * Gets the path to the events file of this repository.
+     *
+     * @return the path
+     */
+    public Path getEventsPath() {
+        return eventsPath;
+    }
+
+    /**
+     * Starts a new query over the events. Without any filters,
+     * the query matches all events.
+     *
+     * @return the query
+     */
+    public EventQuery query() {
+        return new EventQuery(this);
+    }
+
+    /**
+     * Adds an event to the events file, after any events on the same
+     * or earlier dates, keeping the file sorted.
+     *
+     * @param event event to add
+     * @throws EventRepositoryException if the events file cannot be read or written
+     */
+    public void add(Event event) {
+        Objects.requireNonNull(event);
+
+        synchronized (writeLock) {
+            SearchIndex index = openSearchIndex();
+
+            rewrite((reader, writer) -> {
+                boolean added = false;
+                Event existing;
+                while ((existing = reader.readEvent()) != null) {
+                    if (!added && existing.compareTo(event) > 0) {
+                        writer.write(event);
+                        added = true;
+                    }
+                    writer.write(existing);
+                }
+                if (!added) {
+                    writer.write(event);
+                }
+                return 1;
+            });
+
+            if (index != null) {
+                index.add(event);
+                saveSearchIndex(index);
+            }
+        }
+    }
+
+    /**
+     * Iterates over the events matching a query.
+     *
+     * @param query the query
+     * @return the iterator
+     */
+    EventIterator iterator(EventQuery query) {
+        // Searches are answered by the index only when it is up to date
+        SearchIndex index = query.hasSearch() ? openSearchIndex() : null;
+        FilterKernel filter = query.filter(index);
+
+        try {
+            EventReader reader = EventReader.open(eventsPath);
+            reader.setReportInvalidDates(false);
+            return new EventIterator(reader, filter);
+        } catch (IOException ioe) {
+            throw new EventRepositoryException("Failed to read events from " + eventsPath, ioe);
+        }
+    }
+
+    /**
+     * Deletes the events matching a query.
+     *
+     * @param query the query
+     * @return the number of deleted events
+     */
+    long delete(EventQuery query) {
+        synchronized (writeLock) {
+            SearchIndex index = openSearchIndex();
+            FilterKernel filter = query.filter(index);
+
+            long deleted = rewrite((reader, writer) -> {
+                long count = 0;
+                Event event;
+                while ((event = reader.readEvent()) != null) {
+                    if (filter.matches(event)) {
+                        if (index != null) {
+                            index.remove(event);
+                        }
+                        count++;
+                    } else {
+                        writer.write(event);
+                    }
+                }
+                return count;
+            });
+
+            if (index != null) {
+                saveSearchIndex(index);
+            }
+            return deleted;
+        }
+    }
+
+    // Stream the events file through the given transformation into a temporary
+    // file, which then replaces the events file.
+    private long rewrite(Rewriter rewriter) {
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(eventsPath.toAbsolutePath().getParent(), "events", ".tmp");
+
+            long result;
+            try (EventReader reader = EventReader.open(eventsPath);
+                 EventWriter writer = new EventWriter(Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8))) {
+                reader.setReportInvalidDates(false);
+                result = rewriter.rewrite(reader, writer);
+            }
+
+            Files.move(tempFile, eventsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            QueryCache.forEventsPath(eventsPath).invalidate();
+            return result;
+        } catch (IOException ioe) {
+            throw new EventRepositoryException("Failed to write events to " + eventsPath, ioe);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ioe) {
+                    // Leftover temporary files are harmless
+                }
+            }
+        }
+    }
+
+    // Open the search index if it exists and matches the events file.
+    private SearchIndex openSearchIndex() {
+        SearchIndex index = SearchIndex.open(eventsPath);
+        return index == null || index.isStale() ? null : index;
+    }
+
+    private void saveSearchIndex(SearchIndex index) {
+        try {
+            index.save(eventsPath);
+        } catch (IOException ioe) {
+            // The index will be found out of date and rebuilt on the next search
+        }
+    }
+
+    // Transformation of the events file applied by rewrite
+    private interface Rewriter {
+        long rewrite(EventReader reader, EventWriter writer) throws IOException;
+    }
+}
\ No newline at end of file
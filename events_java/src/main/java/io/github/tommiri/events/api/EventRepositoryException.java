@@ -0,0 +1,28 @@
+package io.github.tommiri.events.api;
+
+/**
+ * Unchecked exception thrown when an {@link EventRepository}
+ * cannot read or write its events file.
+ */
+public class EventRepositoryException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs an exception with the given message.
+     *
+     * @param message the detail message
+     */
+    public EventRepositoryException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs an exception with the given message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the underlying cause
+     */
+    public EventRepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
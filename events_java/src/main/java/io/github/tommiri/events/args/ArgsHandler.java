@@ -34,11 +34,27 @@ public class ArgsHandler {
      * @param args command-line arguments
      */
     public void handleArgs(String... args) {
+        CommandHandler.getInstance().reset();
+
+        // Common invocations are parsed without JCommander,
+        // which keeps one-shot runs fast
+        CommandBase quickCmd = QuickArgsParser.parse(args);
+        if (quickCmd != null) {
+            handleCommand(quickCmd);
+            return;
+        }
+
         // Initialize variables for all commands
         CommandBase baseCmd = new CommandBase();
         CommandList listCmd = new CommandList();
         CommandAdd addCmd = new CommandAdd();
         CommandDelete deleteCmd = new CommandDelete();
+        CommandImport importCmd = new CommandImport();
+        CommandCount countCmd = new CommandCount();
+        CommandDiff diffCmd = new CommandDiff();
+        CommandSync syncCmd = new CommandSync();
+        CommandDedup dedupCmd = new CommandDedup();
+        CommandRemind remindCmd = new CommandRemind();
 
         // Build JCommander with commands
         JCommander jc = JCommander.newBuilder()
@@ -46,6 +62,12 @@ public class ArgsHandler {
                 .addCommand("list", listCmd)
                 .addCommand("add", addCmd)
                 .addCommand("delete", deleteCmd)
+                .addCommand("import", importCmd)
+                .addCommand("count", countCmd)
+                .addCommand("diff", diffCmd)
+                .addCommand("sync", syncCmd)
+                .addCommand("dedup", dedupCmd)
+                .addCommand("remind", remindCmd)
                 .build();
 
         // Set program name for usage information
@@ -55,21 +77,28 @@ public class ArgsHandler {
             jc.parse(args);
             String parsedCommand = jc.getParsedCommand();
 
-            CommandHandler ch = CommandHandler.getInstance();
-
             // Display usage and exit if no command was
             // entered or user specifies the "-h" flag
             if (parsedCommand == null) {
                 displayUsage(jc);
-            } else if (ch.isHelpRequested(listCmd, addCmd, deleteCmd)) {
+            } else if (isHelpRequested(listCmd, addCmd, deleteCmd, importCmd, countCmd, diffCmd, syncCmd,
+                    dedupCmd, remindCmd)) {
                 displayUsage(jc, parsedCommand);
             }
 
+            CommandHandler ch = CommandHandler.getInstance();
+
             // Handle parsed command based on user input
             switch (parsedCommand) {
                 case "list" -> ch.handleListCommand(listCmd);
                 case "add" -> ch.handleAddCommand(addCmd);
                 case "delete" -> ch.handleDeleteCommand(deleteCmd);
+                case "import" -> ch.handleImportCommand(importCmd);
+                case "count" -> ch.handleCountCommand(countCmd);
+                case "diff" -> ch.handleDiffCommand(diffCmd);
+                case "sync" -> ch.handleSyncCommand(syncCmd);
+                case "dedup" -> ch.handleDedupCommand(dedupCmd);
+                case "remind" -> ch.handleRemindCommand(remindCmd);
             }
 
         } catch (ParameterException e) {
@@ -79,6 +108,41 @@ public class ArgsHandler {
 
     }
 
+    /**
+     * Handle a command parsed by the quick parser
+     *
+     * @param cmd command to handle
+     */
+    private void handleCommand(CommandBase cmd) {
+        CommandHandler ch = CommandHandler.getInstance();
+
+        if (cmd instanceof CommandList listCmd) {
+            ch.handleListCommand(listCmd);
+        } else if (cmd instanceof CommandAdd addCmd) {
+            ch.handleAddCommand(addCmd);
+        } else if (cmd instanceof CommandDelete deleteCmd) {
+            ch.handleDeleteCommand(deleteCmd);
+        } else if (cmd instanceof CommandCount countCmd) {
+            ch.handleCountCommand(countCmd);
+        }
+    }
+
+    /**
+     * Method for checking if the help flag on a command
+     * has been triggered
+     *
+     * @param commands command objects to check
+     * @return true if user has specified the "-h" flag, otherwise false
+     */
+    private boolean isHelpRequested(CommandBase... commands) {
+        for (CommandBase cmd : commands) {
+            if (cmd.help) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Display usage for specific command
      *
@@ -0,0 +1,43 @@
+package io.github.tommiri.events.args;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import io.github.tommiri.events.utils.LocalDateConverter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Command for counting events
+ */
+@Parameters(commandNames = "count", commandDescription = "Count events per category")
+public class CommandCount extends CommandBase {
+    @Parameter(names = "--today", description = "Count events happening today")
+    public boolean today;
+    @Parameter(names = "--before-date", description = "Count events before specified date", converter = LocalDateConverter.class)
+    public LocalDate before_date;
+    @Parameter(names = "--after-date", description = "Count events after specified date", converter = LocalDateConverter.class)
+    public LocalDate after_date;
+    @Parameter(names = "--date", description = "Count events on specified date", converter = LocalDateConverter.class)
+    public LocalDate date;
+    @Parameter(names = "--categories", description = "Count events from specified categories")
+    public List<String> categories;
+    @Parameter(names = "--file", description = "Count events from specified file instead, can be given more than once")
+    public List<String> files;
+    @Parameter(names = "--calendars", description = "Count events from the events file and all files in ~/.events/calendars")
+    public boolean calendars;
+    @Parameter(names = "--input", description = "Count events read from specified file, or \"-\" for standard input, instead")
+    public String input;
+
+    /**
+     * Method for validating user input for count command
+     *
+     * @throws ParameterException in case user tries to combine input with files
+     */
+    public void validateOptions() throws ParameterException {
+        if (input != null && (files != null || calendars)) {
+            throw new ParameterException("Cannot use \"--input\" with \"--file\" or \"--calendars\"!");
+        }
+    }
+}
\ No newline at end of file
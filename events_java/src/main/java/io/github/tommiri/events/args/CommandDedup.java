@@ -0,0 +1,19 @@
+package io.github.tommiri.events.args;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+/**
+ * Command for removing duplicate events
+ */
+@Parameters(commandNames = "dedup", commandDescription = "Remove duplicate events, keeping a fingerprint of every " +
+        "event in memory unless the file is sorted by date")
+public class CommandDedup extends CommandBase {
+    @Parameter(names = "--dry-run", description = "Display results of executing command without actually executing " +
+            "it")
+    public boolean dry_run;
+
+    @Parameter(names = "--duplicates", description = "Display the duplicate events that are removed instead of the " +
+            "remaining events")
+    public boolean duplicates;
+}
\ No newline at end of file
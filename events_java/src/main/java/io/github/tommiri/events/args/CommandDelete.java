@@ -31,6 +31,11 @@ public class CommandDelete extends CommandBase {
     @Parameter(names = "--dry-run", description = "Display results of executing command without actually executing " +
             "it")
     public boolean dry_run;
+    @Parameter(names = "--input", description = "Read events from specified file, or \"-\" for standard input, and " +
+            "write the remaining events to standard output instead")
+    public String input;
+    @Parameter(names = "--explain", description = "Display how the events would be found instead of deleting them")
+    public boolean explain;
 
     /**
      * Method for validating user input for delete command
@@ -0,0 +1,29 @@
+package io.github.tommiri.events.args;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+
+import java.util.List;
+
+/**
+ * Command for comparing events with another file
+ */
+@Parameters(commandNames = "diff", commandDescription = "Compare events with another CSV file")
+public class CommandDiff extends CommandBase {
+    @Parameter(description = "<file to compare with>")
+    public List<String> files;
+    @Parameter(names = "--summary", description = "Display only the number of added, removed and common events")
+    public boolean summary;
+
+    /**
+     * Method for validating user input for diff command
+     *
+     * @throws ParameterException user input is invalid
+     */
+    public void validateOptions() throws ParameterException {
+        if (files == null || files.size() != 1) {
+            throw new ParameterException("Exactly one file to compare with is required!");
+        }
+    }
+}
\ No newline at end of file
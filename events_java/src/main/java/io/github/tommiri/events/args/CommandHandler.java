@@ -1,17 +1,48 @@
 package io.github.tommiri.events.args;
 
+import io.github.tommiri.events.event.DateHistogram;
+import io.github.tommiri.events.event.DateRange;
 import io.github.tommiri.events.event.Event;
+import io.github.tommiri.events.event.EventDeduplicator;
+import io.github.tommiri.events.event.EventDiff;
+import io.github.tommiri.events.event.EventImporter;
 import io.github.tommiri.events.event.EventManager;
-import io.github.tommiri.events.event.EventUtils;
+import io.github.tommiri.events.event.EventWriter;
+import io.github.tommiri.events.event.QueryCache;
+import io.github.tommiri.events.event.SearchIndex;
+import io.github.tommiri.events.event.TaggedEvent;
+import io.github.tommiri.events.query.FederatedQuery;
+import io.github.tommiri.events.query.QueryNode;
+import io.github.tommiri.events.query.QueryPlan;
+import io.github.tommiri.events.query.QueryPlanner;
+import io.github.tommiri.events.query.StreamingFilter;
+import io.github.tommiri.events.remind.ReminderDispatcher;
+import io.github.tommiri.events.remind.ReminderScheduler;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.function.Predicate;
-
-import static io.github.tommiri.events.event.EventUtils.isEventCategoryInList;
-import static io.github.tommiri.events.utils.FilterUtils.*;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 /**
  * Singleton class for handling command line arguments.
@@ -22,22 +53,16 @@ public class CommandHandler {
     private List<Event> events;
 
     // Private constructor to prevent instantiation.
+    // Events are loaded lazily, so commands that can be
+    // answered without them never pay for parsing the file.
     private CommandHandler() {
         this.em = EventManager.getInstance();
-        Path eventsPath = em.getEventsPath();
-
-        if (eventsPath == null) {
-            System.exit(-1);
-        }
-
-        boolean success = em.loadEvents(eventsPath);
-        if (!success) {
-            System.err.println("Error loading events");
-            System.exit(-1);
-        }
+    }
 
-        // Assign current events to local member
-        this.events = em.getEvents();
+    // Forget events loaded by an earlier command, so that each command
+    // starts from the file on disk even when several run in one process.
+    void reset() {
+        this.events = null;
     }
 
     /**
@@ -63,45 +88,60 @@ public class CommandHandler {
         // Validate user input
         cmd.validateOptions();
 
-        // Initialize predicate used for filtering to null
-        Predicate<Event> filterPredicate = null;
-
-        if (cmd.today) {
-            // Set predicate to true if event's day matches today's date
-            filterPredicate = composePredicateAnd(filterPredicate, event -> event.compareTo(LocalDate.now()) == 0);
-        }
-        if (cmd.date != null) {
-            // Set predicate to true if event's day matches given date
-            filterPredicate = composePredicateAnd(filterPredicate, event -> event.compareTo(cmd.date) == 0);
+        if (cmd.input != null) {
+            handleInputListCommand(cmd);
+            return;
         }
-        if (cmd.before_date != null) {
-            // Set predicate to true if event's day is before given date
-            filterPredicate = composePredicateAnd(filterPredicate, event -> event.compareTo(cmd.before_date) < 0);
+
+        List<Path> sources = getSources(cmd.files, cmd.calendars);
+        if (sources != null) {
+            handleFederatedListCommand(cmd, sources);
+            return;
         }
-        if (cmd.after_date != null) {
-            // Set predicate to true if event's day is after given date
-            filterPredicate = composePredicateAnd(filterPredicate, event -> event.compareTo(cmd.after_date) > 0);
+
+        Path eventsPath = getEventsPath();
+        if (cmd.count && cmd.search == null && !cmd.explain) {
+            // Date and category filters can be answered from the histogram
+            // without looking at the events one by one
+            System.out.println(countWithHistogram(cmd, getHistogram(eventsPath)));
+            return;
         }
-        if (cmd.categories != null) {
-            if (cmd.exclude) {
-                // Set predicate to true if event's category is not in list
-                filterPredicate = composePredicateAnd(filterPredicate, event -> !isEventCategoryInList(event, cmd.categories));
+
+        // Answer from the query cache if the same query has
+        // already been run against this version of the file
+        QueryCache cache = QueryCache.forEventsPath(eventsPath);
+        // Explaining the plan always requires planning the query
+        String cacheKey = cmd.explain ? null : QueryCache.createKey(eventsPath, cmd.toQueryKey());
+        List<Event> cachedEvents = cache.lookup(cacheKey);
+        if (cachedEvents != null) {
+            if (cmd.count) {
+                System.out.println(cachedEvents.size());
             } else {
-                // Set predicate to true if event's category is in list
-                filterPredicate = composePredicateAnd(filterPredicate, event -> isEventCategoryInList(event, cmd.categories));
+                EventManager.printEvents(cachedEvents);
             }
+            return;
         }
-        if (cmd.no_category) {
-            // Set predicate to true if event has no category
-            filterPredicate = composePredicateAnd(filterPredicate, EventUtils::isEventCategoryUndefined);
+
+        loadEvents();
+
+        QueryNode query = createListQuery(cmd, eventsPath);
+        QueryPlan plan = QueryPlanner.plan(query, this.events, em.isSorted());
+        if (cmd.explain) {
+            System.out.println(plan.explain());
+            return;
         }
 
-        // Set local events to events filtered with predicate
+        // Set local events to events matching the query
         // No changes are made to file
-        this.events = filterList(this.events, filterPredicate);
+        this.events = plan.select();
+        cache.store(cacheKey, this.events);
 
-        // Print local events
-        EventManager.printEvents(this.events);
+        // Print local events, or only their number if requested
+        if (cmd.count) {
+            System.out.println(this.events.size());
+        } else {
+            EventManager.printEvents(this.events);
+        }
     }
 
     /**
@@ -110,6 +150,8 @@ public class CommandHandler {
      * @param cmd "add" command to handle
      */
     public void handleAddCommand(CommandAdd cmd) {
+        loadEvents();
+
         // Insert new event to event manager and file
         em.insertEvent(new Event(cmd.date, cmd.category, cmd.description));
 
@@ -126,66 +168,571 @@ public class CommandHandler {
         // Validate user input
         cmd.validateOptions();
 
-        // Initialize predicate used for filtering to null
-        Predicate<Event> filterPredicate = null;
+        if (cmd.input != null) {
+            handleInputDeleteCommand(cmd);
+            return;
+        }
+
+        loadEvents();
+
+        // Plan for finding the events to delete, so that the
+        // range of dates they are in can be sought directly
+        QueryPlan plan = QueryPlanner.plan(createDeleteQuery(cmd), events, em.isSorted());
+        if (cmd.explain) {
+            System.out.println(plan.explain());
+            return;
+        }
+
+        // Keep local events not matched by the plan
+        events = plan.reject();
+
+        if (cmd.dry_run) {
+            // If user has chosen the "--dry-run" option,
+            // do not modify events in event manager and file
+            // and print locally changed events
+            System.out.println("Performing dry run...\nResult:");
+            EventManager.printEvents(events);
+        } else {
+            // Replace events in event manager and file with
+            // local events and print them out
+            em.replaceEvents(events);
+            EventManager.printEvents(em.getEvents());
+        }
+    }
+
+    // Create the query matching the events to delete with the options of a delete command.
+    private static QueryNode createDeleteQuery(CommandDelete cmd) {
+        // Initialize query for events to keep to null, keeping all events.
+        // Options are combined in the order given here, as before.
+        QueryNode keep = null;
 
         if (cmd.all) {
-            // Clear local events
-            events.clear();
+            // Keep no events
+            keep = new QueryNode.Constant(false);
         }
         if (cmd.date != null) {
-            // Set predicate to true if event's date doesn't match given date
-            filterPredicate = composePredicateOr(filterPredicate, event -> event.compareTo(cmd.date) != 0);
+            // Keep events whose date doesn't match given date
+            keep = QueryNode.or(keep, new QueryNode.Not(new QueryNode.DateIn(DateRange.on(cmd.date))));
         }
         if (cmd.before_date != null) {
-            // Set predicate to true if event's date isn't before given date
-            filterPredicate = composePredicateAnd(filterPredicate, event -> event.compareTo(cmd.before_date) >= 0);
+            // Keep events whose date isn't before given date
+            keep = QueryNode.and(keep, new QueryNode.DateIn(new DateRange(cmd.before_date, null)));
         }
         if (cmd.after_date != null) {
-            // Set predicate to true if event's date isn't after given date
-            filterPredicate = composePredicateAnd(filterPredicate, event -> event.compareTo(cmd.after_date) <= 0);
+            // Keep events whose date isn't after given date
+            keep = QueryNode.and(keep, new QueryNode.DateIn(new DateRange(null, cmd.after_date)));
         }
         if (cmd.category != null) {
-            // Set predicate to true if event's category doesn't match given category
-            filterPredicate = composePredicateOr(filterPredicate, event -> !isEventCategoryInList(event,
-                    Collections.singletonList(cmd.category)));
+            // Keep events whose category doesn't match given category
+            keep = QueryNode.or(keep, new QueryNode.Not(new QueryNode.CategoryIn(Set.of(cmd.category))));
         }
         if (cmd.description != null) {
-            // Set predicate to true if event's description doesn't start with given string
-            filterPredicate = composePredicateOr(filterPredicate,
-                    event -> !event.getDescription().startsWith(cmd.description));
+            // Keep events whose description doesn't start with given string
+            keep = QueryNode.or(keep, new QueryNode.Not(new QueryNode.DescriptionPrefix(cmd.description)));
         }
 
-        // Filter local events with predicate
-        events = filterList(events, filterPredicate);
+        return new QueryNode.Not(keep);
+    }
 
-        if (cmd.dry_run) {
-            // If user has chosen the "--dry-run" option,
-            // do not modify events in event manager and file
-            // and print locally changed events
-            System.out.println("Performing dry run...\nResult:");
-            EventManager.printEvents(events);
+    /**
+     * Method for handling "count" command
+     *
+     * @param cmd "count" command to handle
+     */
+    public void handleCountCommand(CommandCount cmd) {
+        // Validate user input
+        cmd.validateOptions();
+
+        DateRange range = createDateRange(cmd.today, cmd.date, cmd.before_date, cmd.after_date);
+        QueryNode query = new QueryNode.DateIn(range);
+        if (cmd.categories != null) {
+            query = QueryNode.and(query, new QueryNode.CategoryIn(new HashSet<>(cmd.categories)));
+        }
+
+        if (cmd.input != null) {
+            // Count the matching events of the input by category as they are read
+            Map<String, Integer> counts = new TreeMap<>();
+            runStreamingFilter(new StreamingFilter(query), cmd.input,
+                    event -> counts.merge(Objects.toString(event.getCategory(), ""), 1, Integer::sum), null);
+            printCounts(cmd.categories, new ArrayList<>(counts.keySet()), category -> counts.getOrDefault(category, 0));
+            return;
+        }
+
+        List<Path> sources = getSources(cmd.files, cmd.calendars);
+        if (sources != null) {
+            // Count the matching events of all files by category
+            Map<String, Integer> counts = new TreeMap<>();
+            for (TaggedEvent event : runFederatedQuery(new FederatedQuery(query, sources))) {
+                counts.merge(Objects.toString(event.getEvent().getCategory(), ""), 1, Integer::sum);
+            }
+            printCounts(cmd.categories, new ArrayList<>(counts.keySet()), category -> counts.getOrDefault(category, 0));
+            return;
+        }
+
+        DateHistogram histogram = getHistogram(getEventsPath());
+        printCounts(cmd.categories, histogram.getCategories(), category -> histogram.count(range, category));
+    }
+
+    // Print the number of events in each category and in total. Without specified
+    // categories, every category with events is listed.
+    private static void printCounts(List<String> categories, List<String> allCategories,
+                                     ToIntFunction<String> counter) {
+        List<String> listed = categories == null ? allCategories : new ArrayList<>(new TreeSet<>(categories));
+
+        int total = 0;
+        for (String category : listed) {
+            int count = counter.applyAsInt(category);
+            if (count > 0 || categories != null) {
+                System.out.println((category.isEmpty() ? "(no category)" : category) + ": " + count);
+            }
+            total += count;
+        }
+        System.out.println("Total: " + total);
+    }
+
+    /**
+     * Method for handling "import" command
+     *
+     * @param cmd "import" command to handle
+     */
+    public void handleImportCommand(CommandImport cmd) {
+        // Validate user input
+        cmd.validateOptions();
+
+        List<Path> inputs = new ArrayList<>();
+        for (String file : cmd.files) {
+            inputs.add(Paths.get(file));
+        }
+
+        // Events are streamed from the files instead of being
+        // loaded, so imports of any size fit in memory
+        EventImporter importer = new EventImporter(cmd.run_size, cmd.dedup);
+        try {
+            importer.importEvents(getEventsPath(), inputs);
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Failed to import events: " + ioe.getMessage());
+            System.exit(-1);
+        }
+
+        System.out.println("Successfully imported " + importer.getImportedCount() + " event(s)!");
+        if (cmd.dedup) {
+            System.out.println("Skipped " + importer.getDuplicateCount() + " duplicate event(s)");
+            if (importer.getRemovedCount() > 0) {
+                System.out.println("Removed " + importer.getRemovedCount()
+                        + " duplicate event(s) already in the events file");
+            }
+        }
+    }
+
+    /**
+     * Method for handling "diff" command
+     *
+     * @param cmd "diff" command to handle
+     */
+    public void handleDiffCommand(CommandDiff cmd) {
+        // Validate user input
+        cmd.validateOptions();
+
+        // Both files are streamed side by side, so files
+        // of any size can be compared without loading them
+        EventDiff diff = new EventDiff();
+        try {
+            diff.diff(getEventsPath(), Paths.get(cmd.files.get(0)), (change, event) -> {
+                if (cmd.summary) {
+                    return;
+                }
+                switch (change) {
+                    case ADDED -> System.out.println("+ " + event);
+                    case REMOVED -> System.out.println("- " + event);
+                }
+            });
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Failed to compare events: " + ioe.getMessage());
+            System.exit(-1);
+        }
+
+        System.out.println("Added: " + diff.getAddedCount() + ", removed: " + diff.getRemovedCount()
+                + ", common: " + diff.getCommonCount());
+    }
+
+    /**
+     * Method for handling "sync" command
+     *
+     * @param cmd "sync" command to handle
+     */
+    public void handleSyncCommand(CommandSync cmd) {
+        // Validate user input
+        cmd.validateOptions();
+
+        EventDiff diff = new EventDiff();
+        try {
+            diff.sync(getEventsPath(), Paths.get(cmd.files.get(0)));
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Failed to sync events: " + ioe.getMessage());
+            System.exit(-1);
+        }
+
+        if (diff.getAddedCount() == 0) {
+            System.out.println("No events affected!");
         } else {
-            // Replace events in event manager and file with
-            // local events and print them out
-            em.replaceEvents(events);
-            EventManager.printEvents(em.getEvents());
+            System.out.println("Successfully synced " + diff.getAddedCount() + " event(s)!");
+        }
+    }
+
+    /**
+     * Method for handling "dedup" command
+     *
+     * @param cmd "dedup" command to handle
+     */
+    public void handleDedupCommand(CommandDedup cmd) {
+        // The file is streamed instead of loaded, so files of any size
+        // can be deduplicated, and events are printed as they are read
+        LocalDate today = LocalDate.now();
+        Consumer<Event> printer = event -> EventManager.printEvent(event.toString(), event, today);
+        Consumer<Event> ignore = event -> {
+        };
+        Consumer<Event> remaining = cmd.dry_run && !cmd.duplicates ? printer : ignore;
+        Consumer<Event> duplicates = cmd.duplicates ? printer : ignore;
+
+        if (cmd.dry_run) {
+            // If user has chosen the "--dry-run" option, the file is left
+            // as is and the events that would remain are printed
+            System.out.println("Performing dry run...\n" + (cmd.duplicates ? "Duplicates:" : "Result:"));
+        } else if (cmd.duplicates) {
+            System.out.println("Duplicates:");
+        }
+
+        EventDeduplicator deduplicator = new EventDeduplicator();
+        try {
+            deduplicator.deduplicate(getEventsPath(), cmd.dry_run, remaining, duplicates);
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Failed to remove duplicate events: " + ioe.getMessage());
+            System.exit(-1);
+        }
+
+        // Tell when no events were printed under the heading
+        boolean noneRemaining = deduplicator.getReadCount() == deduplicator.getDuplicateCount();
+        if (cmd.duplicates ? deduplicator.getDuplicateCount() == 0 : cmd.dry_run && noneRemaining) {
+            System.out.println("No events found!");
+        }
+        if (!cmd.dry_run) {
+            if (deduplicator.getDuplicateCount() == 0) {
+                System.out.println("No events affected!");
+            } else {
+                System.out.println("Successfully removed " + deduplicator.getDuplicateCount() + " duplicate event(s)!");
+            }
         }
+        System.out.println("Checked " + deduplicator.getReadCount() + " event(s), found "
+                + deduplicator.getDuplicateCount() + " duplicate(s)");
     }
 
     /**
-     * Method for checking if the help flag on a command
-     * has been triggered
+     * Method for handling "remind" command
      *
-     * @param commands command objects to check
-     * @return true if user has specified the "-h" flag, otherwise false
+     * @param cmd "remind" command to handle
      */
-    public boolean isHelpRequested(CommandBase... commands) {
-        for (CommandBase cmd : commands) {
-            if (cmd.help) {
-                return true;
+    public void handleRemindCommand(CommandRemind cmd) {
+        // Validate user input
+        cmd.validateOptions();
+
+        Path eventsPath = getEventsPath();
+        // Without lead times, remind when events start
+        List<Duration> leadTimes = cmd.before == null ? List.of(Duration.ZERO) : cmd.before;
+
+        PrintStream out = System.out;
+        if (cmd.log != null) {
+            try {
+                out = new PrintStream(new FileOutputStream(cmd.log, true), true, StandardCharsets.UTF_8);
+            } catch (IOException ioe) {
+                System.err.println("ERROR: Failed to open log file " + cmd.log);
+                System.exit(-1);
+            }
+        }
+
+        ReminderScheduler scheduler = new ReminderScheduler(eventsPath, leadTimes, cmd.time,
+                new ReminderDispatcher(out, cmd.exec, cmd.jobs), System.out);
+        System.out.println("Reminding of events in " + eventsPath + ", press Ctrl+C to stop");
+        try {
+            scheduler.run();
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Failed to read events: " + ioe.getMessage());
+            System.exit(-1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Query events from several files, as given in the options of a list command.
+    private void handleFederatedListCommand(CommandList cmd, List<Path> sources) {
+        FederatedQuery query = new FederatedQuery(createListQuery(cmd, null), sources);
+        if (cmd.explain) {
+            System.out.println(query.explain());
+            return;
+        }
+
+        List<TaggedEvent> events = runFederatedQuery(query);
+        if (cmd.count) {
+            System.out.println(events.size());
+        } else {
+            EventManager.printTaggedEvents(events);
+        }
+    }
+
+    // Query events read from the input given in the options of a list command,
+    // printing each matching event as soon as it is found.
+    private void handleInputListCommand(CommandList cmd) {
+        StreamingFilter filter = new StreamingFilter(createListQuery(cmd, null));
+        if (cmd.explain) {
+            System.out.println(filter.explain(getInputName(cmd.input)));
+            return;
+        }
+
+        if (cmd.count) {
+            runStreamingFilter(filter, cmd.input, null, null);
+            System.out.println(filter.getMatchCount());
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        runStreamingFilter(filter, cmd.input, event -> EventManager.printEvent(event.toString(), event, today), null);
+        if (filter.getMatchCount() == 0) {
+            System.out.println("No events found!");
+        }
+    }
+
+    // Delete events from the input given in the options of a delete command,
+    // writing the remaining events to standard output as soon as they are found.
+    private void handleInputDeleteCommand(CommandDelete cmd) {
+        StreamingFilter filter = new StreamingFilter(createDeleteQuery(cmd));
+        if (cmd.explain) {
+            System.out.println(filter.explain(getInputName(cmd.input)));
+            return;
+        }
+
+        EventWriter writer = new EventWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        runStreamingFilter(filter, cmd.input, null, new StreamingFilter.Sink() {
+            @Override
+            public void accept(Event event) {
+                writer.write(event);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+        });
+    }
+
+    // Run a query over events read from a file, or from standard input if the
+    // file is "-", exiting if the input cannot be read.
+    private static void runStreamingFilter(StreamingFilter filter, String input, StreamingFilter.Sink matching,
+                                           StreamingFilter.Sink other) {
+        try (Reader reader = "-".equals(input)
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8)) {
+            filter.run(reader, matching, other);
+        } catch (NoSuchFileException nsfe) {
+            System.err.println("ERROR: " + input + " file not found");
+            System.exit(-1);
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Failed to read events: " + ioe.getMessage());
+            System.exit(-1);
+        }
+    }
+
+    // Get the name of the given input for display.
+    private static String getInputName(String input) {
+        return "-".equals(input) ? "standard input" : input;
+    }
+
+    // Create the query matching the options of a list command. Searches use
+    // the index of the given events file, or the descriptions if it is null.
+    private QueryNode createListQuery(CommandList cmd, Path eventsPath) {
+        // Initialize query to null, matching all events
+        QueryNode query = null;
+
+        if (cmd.today) {
+            // Match events whose day is today's date, resolved once
+            query = QueryNode.and(query, new QueryNode.DateIn(DateRange.on(LocalDate.now())));
+        }
+        if (cmd.date != null) {
+            // Match events whose day is the given date
+            query = QueryNode.and(query, new QueryNode.DateIn(DateRange.on(cmd.date)));
+        }
+        if (cmd.before_date != null) {
+            // Match events whose day is before the given date
+            query = QueryNode.and(query, new QueryNode.DateIn(DateRange.before(cmd.before_date)));
+        }
+        if (cmd.after_date != null) {
+            // Match events whose day is after the given date
+            query = QueryNode.and(query, new QueryNode.DateIn(DateRange.after(cmd.after_date)));
+        }
+        if (cmd.categories != null) {
+            QueryNode inCategories = new QueryNode.CategoryIn(new HashSet<>(cmd.categories));
+            // Match events whose category is in the list, or not in it if excluded
+            query = QueryNode.and(query, cmd.exclude ? new QueryNode.Not(inCategories) : inCategories);
+        }
+        if (cmd.no_category) {
+            // Match events with no category
+            query = QueryNode.and(query, new QueryNode.CategoryIn(Set.of("")));
+        }
+        if (cmd.search != null && eventsPath != null) {
+            // Match events among the search results
+            query = QueryNode.and(query, new QueryNode.SearchResults(cmd.search, searchEvents(eventsPath, cmd.search)));
+        } else if (cmd.search != null) {
+            // Match events with all the words in their descriptions
+            query = QueryNode.and(query, new QueryNode.SearchWords(cmd.search, SearchIndex.tokenize(cmd.search)));
+        }
+
+
+        // Without any options, all events match
+        return query == null ? new QueryNode.Constant(true) : query;
+    }
+
+    // Get the files to query from the options of a command, or null
+    // if only the events file is queried.
+    private List<Path> getSources(List<String> files, boolean calendars) {
+        if (files == null && !calendars) {
+            return null;
+        }
+
+        List<Path> sources = new ArrayList<>();
+        if (calendars) {
+            // The events file and every CSV file in the calendars directory
+            Path eventsPath = getEventsPath();
+            sources.add(eventsPath);
+            Path calendarsPath = eventsPath.toAbsolutePath().getParent().resolve("calendars");
+            if (Files.isDirectory(calendarsPath)) {
+                try (Stream<Path> paths = Files.list(calendarsPath)) {
+                    paths.filter(path -> path.getFileName().toString().endsWith(".csv"))
+                            .sorted()
+                            .forEach(sources::add);
+                } catch (IOException ioe) {
+                    System.err.println("ERROR: Failed to list calendars in " + calendarsPath);
+                    System.exit(-1);
+                }
+            }
+        }
+        if (files != null) {
+            for (String file : files) {
+                Path path = Paths.get(file);
+                if (Files.notExists(path)) {
+                    System.err.println("ERROR: " + path + " file not found");
+                    System.exit(-1);
+                }
+                sources.add(path);
             }
         }
-        return false;
+        return sources;
+    }
+
+    // Run a query over several files, exiting if any of them cannot be read.
+    private static List<TaggedEvent> runFederatedQuery(FederatedQuery query) {
+        try {
+            return query.run();
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Failed to read events: " + ioe.getMessage());
+            System.exit(-1);
+            return null;
+        }
+    }
+
+    // Count events matching the date and category options of a list
+    // command using the histogram of events per day.
+    private static int countWithHistogram(CommandList cmd, DateHistogram histogram) {
+        DateRange range = createDateRange(cmd.today, cmd.date, cmd.before_date, cmd.after_date);
+        Set<String> categories = cmd.categories == null ? null : new HashSet<>(cmd.categories);
+
+        if (cmd.no_category) {
+            // Only events with no category can match
+            boolean matches = categories == null || categories.contains("") != cmd.exclude;
+            return matches ? histogram.count(range, "") : 0;
+        }
+        if (categories == null) {
+            return histogram.count(range);
+        }
+
+        int count = 0;
+        for (String category : categories) {
+            count += histogram.count(range, category);
+        }
+        return cmd.exclude ? histogram.count(range) - count : count;
+    }
+
+    // Create the range of dates matching all the given date options.
+    private static DateRange createDateRange(boolean today, LocalDate date, LocalDate beforeDate,
+                                             LocalDate afterDate) {
+        DateRange range = DateRange.ALL;
+        if (today) {
+            range = range.intersect(DateRange.on(LocalDate.now()));
+        }
+        if (date != null) {
+            range = range.intersect(DateRange.on(date));
+        }
+        if (beforeDate != null) {
+            range = range.intersect(DateRange.before(beforeDate));
+        }
+        if (afterDate != null) {
+            range = range.intersect(DateRange.after(afterDate));
+        }
+        return range;
+    }
+
+    // Get the histogram of events per day. The histogram saved for the current
+    // version of the file is used without loading the events, otherwise it is
+    // built from the loaded events and saved for the next count.
+    private DateHistogram getHistogram(Path eventsPath) {
+        DateHistogram histogram = DateHistogram.open(eventsPath);
+        if (histogram == null) {
+            loadEvents();
+            histogram = em.getHistogram();
+            try {
+                histogram.save(eventsPath);
+            } catch (IOException ioe) {
+                System.err.println("Failed to save histogram");
+            }
+        }
+        return histogram;
+    }
+
+    // Search the index for events matching the given words. The index is
+    // built from the loaded events if it does not exist or is out of date.
+    private long[] searchEvents(Path eventsPath, String terms) {
+        SearchIndex index = SearchIndex.open(eventsPath);
+        if (index == null || index.isStale()) {
+            index = SearchIndex.build(this.events);
+            try {
+                index.save(eventsPath);
+            } catch (IOException ioe) {
+                System.err.println("Failed to save search index");
+            }
+        }
+        return index.search(terms);
+    }
+
+    // Get the path to the events file, exiting if it cannot be found.
+    private Path getEventsPath() {
+        Path eventsPath = em.getEventsPath();
+        if (eventsPath == null) {
+            System.exit(-1);
+        }
+        return eventsPath;
+    }
+
+    // Load events from the events file into the local member,
+    // exiting if loading fails. Does nothing if already loaded.
+    private void loadEvents() {
+        if (this.events != null) {
+            return;
+        }
+
+        boolean success = em.loadEvents(getEventsPath());
+        if (!success) {
+            System.err.println("Error loading events");
+            System.exit(-1);
+        }
+
+        // Assign current events to local member
+        this.events = em.getEvents();
     }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package io.github.tommiri.events.args;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+
+import java.util.List;
+
+/**
+ * Command for importing events
+ */
+@Parameters(commandNames = "import", commandDescription = "Import events from CSV files")
+public class CommandImport extends CommandBase {
+    @Parameter(description = "<files to import>")
+    public List<String> files;
+    @Parameter(names = "--dedup", description = "Skip events with the same date, category and description as " +
+            "another event")
+    public boolean dedup;
+    @Parameter(names = "--run-size", description = "Maximum number of events sorted in memory at once")
+    public int run_size = 100000;
+
+    /**
+     * Method for validating user input for import command
+     *
+     * @throws ParameterException user input is invalid
+     */
+    public void validateOptions() throws ParameterException {
+        if (files == null || files.isEmpty()) {
+            throw new ParameterException("At least one file to import is required!");
+        }
+
+        if (run_size <= 0) {
+            throw new ParameterException("\"--run-size\" must be greater than zero!");
+        }
+    }
+}
\ No newline at end of file
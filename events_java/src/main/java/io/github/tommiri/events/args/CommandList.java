@@ -3,10 +3,12 @@ package io.github.tommiri.events.args;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
+import io.github.tommiri.events.event.SearchIndex;
 import io.github.tommiri.events.utils.LocalDateConverter;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.TreeSet;
 
 /**
  * Command for listing events
@@ -23,19 +25,65 @@ public class CommandList extends CommandBase {
     public LocalDate date;
     @Parameter(names = "--categories", description = "List events from specified categories")
     public List<String> categories;
+    @Parameter(names = "--file", description = "Query events from specified file instead, can be given more than once")
+    public List<String> files;
+    @Parameter(names = "--calendars", description = "Query events from the events file and all files in ~/.events/calendars")
+    public boolean calendars;
+    @Parameter(names = "--input", description = "Query events read from specified file, or \"-\" for standard input, instead")
+    public String input;
     @Parameter(names = "--exclude", description = "Exclude specified categories")
     public boolean exclude;
     @Parameter(names = "--no-category", description = "List events with no category")
     public boolean no_category;
+    @Parameter(names = "--search", description = "List events with descriptions containing all specified words")
+    public String search;
+    @Parameter(names = "--count", description = "Display the number of matching events instead of the events")
+    public boolean count;
+    @Parameter(names = "--explain", description = "Display how the events would be found instead of listing them")
+    public boolean explain;
 
     /**
      * Method for validating user input for list command
      *
-     * @throws ParameterException in case user tries to exclude without specifying categories
+     * @throws ParameterException in case user tries to exclude without specifying categories,
+     *                            to search without any words or to combine input with files
      */
     public void validateOptions() throws ParameterException {
+        if (input != null && (files != null || calendars)) {
+            throw new ParameterException("Cannot use \"--input\" with \"--file\" or \"--calendars\"!");
+        }
+
         if (exclude && categories == null) {
             throw new ParameterException("Cannot use \"--exclude\" without \"--categories\"!");
         }
+
+        if (search != null && SearchIndex.tokenize(search).isEmpty()) {
+            throw new ParameterException("\"--search\" requires at least one word!");
+        }
+    }
+
+    /**
+     * Method for getting a normalized form of the options, so that
+     * equivalent queries produce the same string
+     *
+     * @return the normalized query string
+     */
+    public String toQueryKey() {
+        // Resolve "--today" to the actual date, since its meaning changes daily
+        LocalDate onDate = today ? LocalDate.now() : null;
+        // Category order and duplicates do not affect the result
+        String categoryKey = categories == null ? null : String.join(",", new TreeSet<>(categories));
+        // Word order, case and duplicates do not affect the result
+        String searchKey = search == null ? null : String.join(" ", new TreeSet<>(SearchIndex.tokenize(search)));
+
+        return "list"
+                + "|today=" + onDate
+                + "|date=" + date
+                + "|before=" + before_date
+                + "|after=" + after_date
+                + "|categories=" + categoryKey
+                + "|exclude=" + exclude
+                + "|no-category=" + no_category
+                + "|search=" + searchKey;
     }
 }
\ No newline at end of file
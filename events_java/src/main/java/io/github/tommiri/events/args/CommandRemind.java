@@ -0,0 +1,42 @@
+package io.github.tommiri.events.args;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+import io.github.tommiri.events.utils.DurationConverter;
+import io.github.tommiri.events.utils.LocalTimeConverter;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Command for reminding of upcoming events
+ */
+@Parameters(commandNames = "remind", commandDescription = "Keep running and remind of upcoming events")
+public class CommandRemind extends CommandBase {
+    @Parameter(names = "--before", description = "Remind specified time before events, such as 15m, 2h or 1d, can be " +
+            "given more than once", converter = DurationConverter.class)
+    public List<Duration> before;
+    @Parameter(names = "--time", description = "Time of day events start at", converter = LocalTimeConverter.class)
+    public LocalTime time = LocalTime.MIDNIGHT;
+    @Parameter(names = "--exec", description = "Run specified shell command for each reminder, with the event in " +
+            "EVENT_DATE, EVENT_CATEGORY and EVENT_DESCRIPTION")
+    public String exec;
+    @Parameter(names = "--jobs", description = "Number of \"--exec\" commands to run at once at most, by default " +
+            "the number of processors")
+    public int jobs = Runtime.getRuntime().availableProcessors();
+    @Parameter(names = "--log", description = "Append reminders to specified file instead of printing them")
+    public String log;
+
+    /**
+     * Method for validating user input for remind command
+     *
+     * @throws ParameterException in case the number of jobs is not positive
+     */
+    public void validateOptions() throws ParameterException {
+        if (jobs <= 0) {
+            throw new ParameterException("\"--jobs\" must be greater than zero!");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package io.github.tommiri.events.args;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.Parameters;
+
+import java.util.List;
+
+/**
+ * Command for adding missing events from another file
+ */
+@Parameters(commandNames = "sync", commandDescription = "Add events missing from the events file from another CSV file")
+public class CommandSync extends CommandBase {
+    @Parameter(description = "<file to sync from>")
+    public List<String> files;
+
+    /**
+     * Method for validating user input for sync command
+     *
+     * @throws ParameterException user input is invalid
+     */
+    public void validateOptions() throws ParameterException {
+        if (files == null || files.size() != 1) {
+            throw new ParameterException("Exactly one file to sync from is required!");
+        }
+    }
+}
\ No newline at end of file
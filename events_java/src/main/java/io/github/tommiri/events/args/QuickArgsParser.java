@@ -0,0 +1,319 @@
+package io.github.tommiri.events.args;
+
+import com.beust.jcommander.ParameterException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hand-rolled parser for the common, valid invocations of the
+ * "list", "add", "delete" and "count" commands.
+ * <p>
+ * Setting up JCommander reflects over the annotations of every command
+ * class, which makes up a large share of the run time of a one-shot
+ * invocation. This parser fills in the same command objects directly
+ * and gives up on anything it does not fully understand, such as help
+ * flags or invalid input, so that JCommander can handle those cases
+ * and report errors exactly as before.
+ */
+public class QuickArgsParser {
+    // Private constructor to prevent instantiation.
+    private QuickArgsParser() {
+    }
+
+    /**
+     * Method for parsing command line arguments
+     *
+     * @param args command-line arguments
+     * @return the parsed and validated command, or null if the
+     * arguments have to be handled by JCommander
+     */
+    public static CommandBase parse(String... args) {
+        if (args.length == 0) {
+            return null;
+        }
+
+        String[] options = Arrays.copyOfRange(args, 1, args.length);
+        try {
+            switch (args[0]) {
+                case "list" -> {
+                    CommandList cmd = parseList(options);
+                    if (cmd != null) {
+                        cmd.validateOptions();
+                    }
+                    return cmd;
+                }
+                case "add" -> {
+                    return parseAdd(options);
+                }
+                case "count" -> {
+                    CommandCount cmd = parseCount(options);
+                    if (cmd != null) {
+                        cmd.validateOptions();
+                    }
+                    return cmd;
+                }
+                case "delete" -> {
+                    CommandDelete cmd = parseDelete(options);
+                    if (cmd != null) {
+                        cmd.validateOptions();
+                    }
+                    return cmd;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        } catch (ParameterException e) {
+            // Let JCommander report the error along with usage
+            return null;
+        }
+    }
+
+    private static CommandList parseList(String[] options) {
+        CommandList cmd = new CommandList();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < options.length; i++) {
+            String option = options[i];
+            // Only "--categories" and "--file" may be given more than once
+            if (!seen.add(option) && !option.equals("--categories") && !option.equals("--file")) {
+                return null;
+            }
+
+            switch (option) {
+                case "--today" -> cmd.today = true;
+                case "--calendars" -> cmd.calendars = true;
+                case "--exclude" -> cmd.exclude = true;
+                case "--no-category" -> cmd.no_category = true;
+                case "--count" -> cmd.count = true;
+                case "--explain" -> cmd.explain = true;
+                case "--date", "--before-date", "--after-date" -> {
+                    LocalDate date = parseDate(valueAt(options, ++i));
+                    if (date == null) {
+                        return null;
+                    }
+                    switch (option) {
+                        case "--date" -> cmd.date = date;
+                        case "--before-date" -> cmd.before_date = date;
+                        default -> cmd.after_date = date;
+                    }
+                }
+                case "--search" -> {
+                    cmd.search = valueAt(options, ++i);
+                    if (cmd.search == null) {
+                        return null;
+                    }
+                }
+                case "--input" -> {
+                    cmd.input = inputAt(options, ++i);
+                    if (cmd.input == null) {
+                        return null;
+                    }
+                }
+                case "--categories" -> {
+                    String value = valueAt(options, ++i);
+                    if (value == null) {
+                        return null;
+                    }
+                    if (cmd.categories == null) {
+                        cmd.categories = new ArrayList<>();
+                    }
+                    // Comma-separated values are split like JCommander does
+                    cmd.categories.addAll(Arrays.asList(value.split(",")));
+                }
+                case "--file" -> {
+                    String value = valueAt(options, ++i);
+                    if (value == null) {
+                        return null;
+                    }
+                    if (cmd.files == null) {
+                        cmd.files = new ArrayList<>();
+                    }
+                    cmd.files.addAll(Arrays.asList(value.split(",")));
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return cmd;
+    }
+
+    private static CommandCount parseCount(String[] options) {
+        CommandCount cmd = new CommandCount();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < options.length; i++) {
+            String option = options[i];
+            // Only "--categories" and "--file" may be given more than once
+            if (!seen.add(option) && !option.equals("--categories") && !option.equals("--file")) {
+                return null;
+            }
+
+            switch (option) {
+                case "--today" -> cmd.today = true;
+                case "--calendars" -> cmd.calendars = true;
+                case "--date", "--before-date", "--after-date" -> {
+                    LocalDate date = parseDate(valueAt(options, ++i));
+                    if (date == null) {
+                        return null;
+                    }
+                    switch (option) {
+                        case "--date" -> cmd.date = date;
+                        case "--before-date" -> cmd.before_date = date;
+                        default -> cmd.after_date = date;
+                    }
+                }
+                case "--input" -> {
+                    cmd.input = inputAt(options, ++i);
+                    if (cmd.input == null) {
+                        return null;
+                    }
+                }
+                case "--categories" -> {
+                    String value = valueAt(options, ++i);
+                    if (value == null) {
+                        return null;
+                    }
+                    if (cmd.categories == null) {
+                        cmd.categories = new ArrayList<>();
+                    }
+                    cmd.categories.addAll(Arrays.asList(value.split(",")));
+                }
+                case "--file" -> {
+                    String value = valueAt(options, ++i);
+                    if (value == null) {
+                        return null;
+                    }
+                    if (cmd.files == null) {
+                        cmd.files = new ArrayList<>();
+                    }
+                    cmd.files.addAll(Arrays.asList(value.split(",")));
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return cmd;
+    }
+
+    private static CommandAdd parseAdd(String[] options) {
+        CommandAdd cmd = new CommandAdd();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < options.length; i++) {
+            String option = options[i];
+            if (!seen.add(option)) {
+                return null;
+            }
+
+            String value = valueAt(options, ++i);
+            if (value == null) {
+                return null;
+            }
+
+            switch (option) {
+                case "--date" -> {
+                    cmd.date = parseDate(value);
+                    if (cmd.date == null) {
+                        return null;
+                    }
+                }
+                case "--category" -> cmd.category = value;
+                case "--description" -> cmd.description = value;
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        // Description is required
+        return cmd.description == null ? null : cmd;
+    }
+
+    private static CommandDelete parseDelete(String[] options) {
+        CommandDelete cmd = new CommandDelete();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < options.length; i++) {
+            String option = options[i];
+            if (!seen.add(option)) {
+                return null;
+            }
+
+            switch (option) {
+                case "--all" -> cmd.all = true;
+                case "--dry-run" -> cmd.dry_run = true;
+                case "--explain" -> cmd.explain = true;
+                case "--date", "--before-date", "--after-date" -> {
+                    LocalDate date = parseDate(valueAt(options, ++i));
+                    if (date == null) {
+                        return null;
+                    }
+                    switch (option) {
+                        case "--date" -> cmd.date = date;
+                        case "--before-date" -> cmd.before_date = date;
+                        default -> cmd.after_date = date;
+                    }
+                }
+                case "--input" -> {
+                    cmd.input = inputAt(options, ++i);
+                    if (cmd.input == null) {
+                        return null;
+                    }
+                }
+                case "--category", "--description" -> {
+                    String value = valueAt(options, ++i);
+                    if (value == null) {
+                        return null;
+                    }
+                    if (option.equals("--category")) {
+                        cmd.category = value;
+                    } else {
+                        cmd.description = value;
+                    }
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return cmd;
+    }
+
+    // Get the option value at given index, or null if it is missing
+    // or looks like an option itself.
+    private static String valueAt(String[] options, int index) {
+        if (index >= options.length || options[index].startsWith("-")) {
+            return null;
+        }
+        return options[index];
+    }
+
+    // Get the input option value at given index, which may be "-"
+    // for standard input, or null if it is missing.
+    private static String inputAt(String[] options, int index) {
+        if (index < options.length && options[index].equals("-")) {
+            return options[index];
+        }
+        return valueAt(options, index);
+    }
+
+    // Parse an ISO-8601 date, or return null if it is invalid.
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
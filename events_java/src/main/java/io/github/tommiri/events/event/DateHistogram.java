@@ -0,0 +1,250 @@
+package io.github.tommiri.events.event;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Histogram of events per day, kept as prefix sums so that the number
+ * of events in any date range can be counted with two binary searches.
+ * <p>
+ * One series is kept for all events and one for each category. A series
+ * holds only the days that have events, sorted, along with the number of
+ * events before each of them, so its size depends on the number of events
+ * and not on how many days they span.
+ * <p>
+ * The histogram can be saved next to the events file, tied to the
+ * fingerprint of the file like the search index, so that counting events
+ * of an unchanged file does not require reading the events at all.
+ */
+public class DateHistogram {
+    // Identifies the file format of the histogram
+    private static final int MAGIC = 0x45564448;
+    private static final int VERSION = 1;
+
+    private final Series total;
+    private final Map<String, Series> categorySeries;
+
+    /**
+     * Builds a histogram of the given events.
+     *
+     * @param events events to count
+     */
+    public DateHistogram(List<Event> events) {
+        // Collect the days of the events of each series first
+        DayList totalDays = new DayList();
+        Map<String, DayList> categoryDays = new HashMap<>();
+        for (Event event : events) {
+            long day = event.getDate().toEpochDay();
+            totalDays.add(day);
+            categoryDays.computeIfAbsent(categoryOf(event), c -> new DayList()).add(day);
+        }
+
+        this.total = new Series(totalDays);
+        this.categorySeries = new HashMap<>();
+        for (Map.Entry<String, DayList> entry : categoryDays.entrySet()) {
+            categorySeries.put(entry.getKey(), new Series(entry.getValue()));
+        }
+    }
+
+    // Private constructor for a histogram read from a file.
+    private DateHistogram(Series total, Map<String, Series> categorySeries) {
+        this.total = total;
+        this.categorySeries = categorySeries;
+    }
+
+    /**
+     * Gets the path to the histogram belonging to the given events file.
+     *
+     * @param eventsPath the path to the events file
+     * @return the path to the histogram
+     */
+    public static Path getHistogramPath(Path eventsPath) {
+        return eventsPath.toAbsolutePath().getParent().resolve("histogram.idx");
+    }
+
+    /**
+     * Opens the histogram saved for the current contents of the given
+     * events file.
+     *
+     * @param eventsPath the path to the events file
+     * @return the histogram, or null if none has been saved, the events
+     * file has changed since, or the histogram cannot be read
+     */
+    public static DateHistogram open(Path eventsPath) {
+        Path histogramPath = getHistogramPath(eventsPath);
+        if (Files.notExists(histogramPath)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(histogramPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !in.readUTF().equals(FileFingerprint.of(eventsPath))) {
+                return null;
+            }
+
+            Series total = Series.read(in);
+            int categoryCount = in.readInt();
+            Map<String, Series> categorySeries = new HashMap<>(categoryCount * 2);
+            for (int i = 0; i < categoryCount; i++) {
+                categorySeries.put(in.readUTF(), Series.read(in));
+            }
+            return new DateHistogram(total, categorySeries);
+        } catch (IOException ioe) {
+            // The histogram is rebuilt from the events instead
+            return null;
+        }
+    }
+
+    /**
+     * Saves the histogram next to the given events file, tied to
+     * the current contents of the file.
+     *
+     * @param eventsPath the path to the events file
+     * @throws IOException if writing the histogram fails
+     */
+    public void save(Path eventsPath) throws IOException {
+        Path histogramPath = getHistogramPath(eventsPath);
+        Path tempFile = Files.createTempFile(histogramPath.getParent(), "histogram", ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(FileFingerprint.of(eventsPath));
+                total.write(out);
+                out.writeInt(categorySeries.size());
+                for (Map.Entry<String, Series> entry : categorySeries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out);
+                }
+            }
+            Files.move(tempFile, histogramPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Counts all events within the given range.
+     *
+     * @param range range of dates to count events in
+     * @return the number of events
+     */
+    public int count(DateRange range) {
+        return total.count(range);
+    }
+
+    /**
+     * Counts events of a category within the given range.
+     *
+     * @param range    range of dates to count events in
+     * @param category the category, empty for events with no category
+     * @return the number of events
+     */
+    public int count(DateRange range, String category) {
+        Series series = categorySeries.get(category == null ? "" : category);
+        return series == null ? 0 : series.count(range);
+    }
+
+    /**
+     * Gets all categories that have events in the histogram, sorted.
+     *
+     * @return the categories, with an empty string for no category
+     */
+    public List<String> getCategories() {
+        List<String> categories = new ArrayList<>(categorySeries.keySet());
+        Collections.sort(categories);
+        return categories;
+    }
+
+    private static String categoryOf(Event event) {
+        return event.getCategory() == null ? "" : event.getCategory();
+    }
+
+    // Distinct days with events and the number of events before each of them.
+    // Element i of counts holds the number of events before days[i], and the
+    // last element holds the number of all events.
+    private static class Series {
+        private final long[] days;
+        private final int[] counts;
+
+        private Series(long[] days, int[] counts) {
+            this.days = days;
+            this.counts = counts;
+        }
+
+        Series(DayList dayList) {
+            long[] sorted = Arrays.copyOf(dayList.days, dayList.size);
+            Arrays.sort(sorted);
+
+            // Collapse the sorted days into distinct days with prefix sums
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    distinct++;
+                }
+            }
+            this.days = new long[distinct];
+            this.counts = new int[distinct + 1];
+            int index = -1;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    index++;
+                    days[index] = sorted[i];
+                    counts[index] = i;
+                }
+            }
+            counts[distinct] = sorted.length;
+        }
+
+        int count(DateRange range) {
+            LocalDate start = range.getStart();
+            LocalDate end = range.getEnd();
+            int from = start == null ? 0 : firstIndexAfter(start.toEpochDay() - 1);
+            int to = end == null ? days.length : firstIndexAfter(end.toEpochDay());
+            return from >= to ? 0 : counts[to] - counts[from];
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(days.length);
+            for (int i = 0; i < days.length; i++) {
+                out.writeLong(days[i]);
+                out.writeInt(counts[i + 1]);
+            }
+        }
+
+        static Series read(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            long[] days = new long[length];
+            int[] counts = new int[length + 1];
+            for (int i = 0; i < length; i++) {
+                days[i] = in.readLong();
+                counts[i + 1] = in.readInt();
+            }
+            return new Series(days, counts);
+        }
+
+        // Index of the first day after the given day, or the number of days if none.
+        private int firstIndexAfter(long day) {
+            int index = Arrays.binarySearch(days, day);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+    }
+
+    // Growable list of days, collected while the histogram is built
+    private static class DayList {
+        private long[] days = new long[16];
+        private int size = 0;
+
+        void add(long day) {
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+            }
+            days[size++] = day;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+package io.github.tommiri.events.event;
+
+import java.time.LocalDate;
+
+/**
+ * Range of dates with optional inclusive start and end.
+ */
+public class DateRange {
+    /**
+     * Range containing every date.
+     */
+    public static final DateRange ALL = new DateRange(null, null);
+
+    private final LocalDate start;
+    private final LocalDate end;
+
+    /**
+     * Constructs a range between the given dates.
+     *
+     * @param start first date of the range, or null if unbounded
+     * @param end   last date of the range, or null if unbounded
+     */
+    public DateRange(LocalDate start, LocalDate end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Creates a range containing only the given date.
+     *
+     * @param date the date
+     * @return the range
+     */
+    public static DateRange on(LocalDate date) {
+        return new DateRange(date, date);
+    }
+
+    /**
+     * Creates a range of all dates before the given date.
+     *
+     * @param date the date, exclusive
+     * @return the range
+     */
+    public static DateRange before(LocalDate date) {
+        return new DateRange(null, date.minusDays(1));
+    }
+
+    /**
+     * Creates a range of all dates after the given date.
+     *
+     * @param date the date, exclusive
+     * @return the range
+     */
+    public static DateRange after(LocalDate date) {
+        return new DateRange(date.plusDays(1), null);
+    }
+
+    /**
+     * Gets the first date of the range.
+     *
+     * @return the date, or null if unbounded
+     */
+    public LocalDate getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the last date of the range.
+     *
+     * @return the date, or null if unbounded
+     */
+    public LocalDate getEnd() {
+        return end;
+    }
+
+    /**
+     * Creates the range of dates contained in both this and the other range.
+     *
+     * @param other the other range
+     * @return the intersection
+     */
+    public DateRange intersect(DateRange other) {
+        LocalDate newStart = start == null ? other.start
+                : other.start == null || start.isAfter(other.start) ? start : other.start;
+        LocalDate newEnd = end == null ? other.end
+                : other.end == null || end.isBefore(other.end) ? end : other.end;
+        return new DateRange(newStart, newEnd);
+    }
+
+    /**
+     * Method for checking if the range contains no dates
+     *
+     * @return true if the range is empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return start != null && end != null && start.isAfter(end);
+    }
+
+    /**
+     * Method for checking if the range is unbounded in both directions
+     *
+     * @return true if the range contains every date, otherwise false
+     */
+    public boolean isAll() {
+        return start == null && end == null;
+    }
+
+    /**
+     * Method for checking if a date is within the range
+     *
+     * @param date date to check
+     * @return true if the date is within the range, otherwise false
+     */
+    public boolean contains(LocalDate date) {
+        return (start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end));
+    }
+
+    /**
+     * Returns a string representation of this range.
+     *
+     * @return the range string, such as "[2023-01-01, *]"
+     */
+    @Override
+    public String toString() {
+        return "[" + (start == null ? "*" : start) + ", " + (end == null ? "*" : end) + "]";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,189 @@
+package io.github.tommiri.events.event;
+
+import io.github.tommiri.events.utils.HashUtils;
+import io.github.tommiri.events.utils.LongHashSet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Class for removing duplicate events from the events file.
+ * <p>
+ * Events are duplicates if they have the same date, and the same category
+ * and description ignoring case and differences in whitespace. The first
+ * of the duplicates in the file is kept.
+ * <p>
+ * The file is streamed twice. The first pass only stores a 64-bit
+ * fingerprint of each event in a compact hash set and notes which
+ * fingerprints occur more than once. As fingerprints may collide, the
+ * second pass compares the exact keys of just those events before
+ * dropping any of them, while writing the remaining events out.
+ * Duplicates share a date, so in a file sorted by date both passes only
+ * remember the events of the current date. Only a file that is not
+ * sorted needs a fingerprint of every event in memory.
+ */
+public class EventDeduplicator {
+    private long readCount = 0;
+    private long duplicateCount = 0;
+    private boolean sorted;
+
+    /**
+     * Removes duplicate events from the events file. The events file
+     * is replaced only once all events have been written, and only if
+     * duplicates were found.
+     *
+     * @param eventsPath the path to the events file
+     * @param dryRun     whether to only find the duplicates, leaving the file as is
+     * @param remaining  receives each event that is kept
+     * @param duplicates receives each duplicate event that is removed
+     * @throws IOException if reading or writing the file fails
+     */
+    public void deduplicate(Path eventsPath, boolean dryRun, Consumer<Event> remaining,
+                            Consumer<Event> duplicates) throws IOException {
+        readCount = 0;
+        duplicateCount = 0;
+        LongHashSet candidates = findCandidates(eventsPath);
+
+        // Write next to the events file so it can be replaced atomically
+        Path output = Files.createTempFile(eventsPath.toAbsolutePath().getParent(), "events", ".tmp");
+        try {
+            Set<String> seenKeys = new HashSet<>();
+            LocalDate currentDate = null;
+            try (EventReader reader = EventReader.open(eventsPath);
+                 EventWriter writer = new EventWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+                Event event;
+                while ((event = reader.readEvent()) != null) {
+                    readCount++;
+                    if (sorted && !event.getDate().equals(currentDate)) {
+                        // Keys of earlier dates cannot match any later event
+                        currentDate = event.getDate();
+                        seenKeys.clear();
+                    }
+                    String key = getKey(event);
+                    // Only events sharing a fingerprint can be duplicates,
+                    // so only their exact keys have to be kept in memory
+                    if (candidates.contains(getFingerprint(key)) && !seenKeys.add(key)) {
+                        duplicateCount++;
+                        duplicates.accept(event);
+                    } else {
+                        if (!dryRun) {
+                            writer.write(event);
+                        }
+                        remaining.accept(event);
+                    }
+                }
+            }
+
+            if (!dryRun && duplicateCount > 0) {
+                Files.move(output, eventsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // Any cached query results refer to the previous contents
+                QueryCache.forEventsPath(eventsPath).invalidate();
+            }
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * Gets the number of events read by the last deduplication.
+     *
+     * @return the number of events
+     */
+    public long getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * Gets the number of duplicate events found by the last deduplication.
+     *
+     * @return the number of duplicates
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    // Find the fingerprints shared by more than one event, noting whether
+    // the file is sorted by date. The file is first assumed to be sorted,
+    // and read again with every fingerprint kept if it turns out not to be.
+    private LongHashSet findCandidates(Path eventsPath) throws IOException {
+        sorted = true;
+        LongHashSet candidates = findCandidates(eventsPath, true);
+        if (candidates == null) {
+            sorted = false;
+            candidates = findCandidates(eventsPath, false);
+        }
+        return candidates;
+    }
+
+    // Find the fingerprints shared by more than one event. If the file is
+    // assumed to be sorted, only the fingerprints of the current date are
+    // kept, and null is returned as soon as an event is out of order.
+    private static LongHashSet findCandidates(Path eventsPath, boolean assumeSorted) throws IOException {
+        LongHashSet fingerprints = new LongHashSet();
+        LongHashSet candidates = new LongHashSet();
+
+        try (EventReader reader = EventReader.open(eventsPath)) {
+            // Invalid dates are reported by the second pass, which reads
+            // the file once however many times the first pass does
+            reader.setReportInvalidDates(false);
+
+            Event previous = null;
+            Event event;
+            while ((event = reader.readEvent()) != null) {
+                if (assumeSorted && previous != null) {
+                    if (previous.compareTo(event) > 0) {
+                        return null;
+                    }
+                    if (!previous.getDate().equals(event.getDate())) {
+                        // Fingerprints of earlier dates cannot match any later event
+                        fingerprints.clear();
+                    }
+                }
+                previous = event;
+                long fingerprint = getFingerprint(getKey(event));
+                if (!fingerprints.add(fingerprint)) {
+                    candidates.add(fingerprint);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // Get the normalized key that duplicates have in common
+    private static String getKey(Event event) {
+        return event.getDate() + "\0" + normalize(event.getCategory()) + "\0" + normalize(event.getDescription());
+    }
+
+    // Trim, collapse runs of whitespace into single spaces and lowercase
+    private static String normalize(String value) {
+        String trimmed = Objects.toString(value, "").strip();
+        StringBuilder sb = new StringBuilder(trimmed.length());
+        boolean inWhitespace = false;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isWhitespace(c)) {
+                inWhitespace = true;
+            } else {
+                if (inWhitespace) {
+                    sb.append(' ');
+                    inWhitespace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static long getFingerprint(String key) {
+        return HashUtils.mix(HashUtils.fnv1a64(key));
+    }
+}
\ No newline at end of file
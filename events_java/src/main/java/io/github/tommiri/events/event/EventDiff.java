@@ -0,0 +1,255 @@
+package io.github.tommiri.events.event;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Class for comparing two events files, and for merging the
+ * events missing from one of them into it.
+ * <p>
+ * Both files must be sorted by date, as files saved by the program are.
+ * They are then read side by side one date at a time, so only the events
+ * of a single date are held in memory and the comparison takes a single
+ * pass over each file. Events on the same date are the same if their
+ * categories and descriptions are. Each event is matched at most once,
+ * so duplicates are compared by how many times they occur.
+ */
+public class EventDiff {
+    private long addedCount = 0;
+    private long removedCount = 0;
+    private long commonCount = 0;
+
+    /**
+     * Kind of difference between the files.
+     */
+    public enum Change {
+        /**
+         * Event only in the other file.
+         */
+        ADDED,
+        /**
+         * Event only in the events file.
+         */
+        REMOVED,
+        /**
+         * Event in both files.
+         */
+        COMMON
+    }
+
+    /**
+     * Receives the events of the compared files.
+     */
+    public interface Listener {
+        /**
+         * Method for receiving an event, in date order
+         *
+         * @param change how the event differs between the files
+         * @param event  the event
+         * @throws IOException if handling the event fails
+         */
+        void accept(Change change, Event event) throws IOException;
+    }
+
+    /**
+     * Compares the events file to another file. On each date, the events of
+     * the events file are passed to the listener first, in file order,
+     * followed by the events only in the other file.
+     *
+     * @param eventsPath the path to the events file
+     * @param otherPath  the path to the file to compare with
+     * @param listener   listener receiving the events of both files
+     * @throws IOException if reading either file fails, or it is not sorted by date
+     */
+    public void diff(Path eventsPath, Path otherPath, Listener listener) throws IOException {
+        addedCount = 0;
+        removedCount = 0;
+        commonCount = 0;
+
+        try (DateGroupReader events = new DateGroupReader(eventsPath);
+             DateGroupReader others = new DateGroupReader(otherPath)) {
+            List<Event> eventGroup = events.readGroup();
+            List<Event> otherGroup = others.readGroup();
+
+            while (!eventGroup.isEmpty() || !otherGroup.isEmpty()) {
+                int order = compareDates(eventGroup, otherGroup);
+                if (order < 0) {
+                    emitAll(eventGroup, Change.REMOVED, listener);
+                    eventGroup = events.readGroup();
+                } else if (order > 0) {
+                    emitAll(otherGroup, Change.ADDED, listener);
+                    otherGroup = others.readGroup();
+                } else {
+                    joinGroups(eventGroup, otherGroup, listener);
+                    eventGroup = events.readGroup();
+                    otherGroup = others.readGroup();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the events only in the other file to the events file. The
+     * events file is replaced only if there are events to add.
+     *
+     * @param eventsPath the path to the events file
+     * @param otherPath  the path to the file to merge from
+     * @throws IOException if reading or writing either file fails,
+     *                     or either file is not sorted by date
+     */
+    public void sync(Path eventsPath, Path otherPath) throws IOException {
+        // Write next to the events file so it can be replaced atomically
+        Path output = Files.createTempFile(eventsPath.toAbsolutePath().getParent(), "events", ".tmp");
+        try {
+            // Every event is written, which keeps the events of
+            // each date together and the output sorted
+            try (EventWriter writer = new EventWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+                diff(eventsPath, otherPath, (change, event) -> writer.write(event));
+            }
+
+            if (addedCount > 0) {
+                Files.move(output, eventsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // Any cached query results refer to the previous contents
+                QueryCache.forEventsPath(eventsPath).invalidate();
+            }
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * Gets the number of events only in the other file in the last comparison.
+     *
+     * @return the number of added events
+     */
+    public long getAddedCount() {
+        return addedCount;
+    }
+
+    /**
+     * Gets the number of events only in the events file in the last comparison.
+     *
+     * @return the number of removed events
+     */
+    public long getRemovedCount() {
+        return removedCount;
+    }
+
+    /**
+     * Gets the number of events in both files in the last comparison.
+     *
+     * @return the number of common events
+     */
+    public long getCommonCount() {
+        return commonCount;
+    }
+
+    // Compare the dates of two groups, with an exhausted
+    // file's empty group coming after every date.
+    private static int compareDates(List<Event> first, List<Event> second) {
+        if (first.isEmpty() || second.isEmpty()) {
+            return first.isEmpty() ? 1 : -1;
+        }
+        return first.get(0).compareTo(second.get(0));
+    }
+
+    // Match the events of the same date in both files.
+    private void joinGroups(List<Event> eventGroup, List<Event> otherGroup, Listener listener) throws IOException {
+        Map<String, Integer> otherCounts = countKeys(otherGroup);
+        for (Event event : eventGroup) {
+            Integer count = otherCounts.get(getKey(event));
+            if (count != null && count > 0) {
+                otherCounts.put(getKey(event), count - 1);
+                emit(Change.COMMON, event, listener);
+            } else {
+                emit(Change.REMOVED, event, listener);
+            }
+        }
+
+        // Events of the other file left over after matching were added
+        Map<String, Integer> eventCounts = countKeys(eventGroup);
+        for (Event event : otherGroup) {
+            Integer count = eventCounts.get(getKey(event));
+            if (count != null && count > 0) {
+                eventCounts.put(getKey(event), count - 1);
+            } else {
+                emit(Change.ADDED, event, listener);
+            }
+        }
+    }
+
+    private static Map<String, Integer> countKeys(List<Event> events) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Event event : events) {
+            counts.merge(getKey(event), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // Events on the same date are compared by category and description
+    private static String getKey(Event event) {
+        return Objects.toString(event.getCategory(), "") + '\0' + event.getDescription();
+    }
+
+    private void emitAll(List<Event> events, Change change, Listener listener) throws IOException {
+        for (Event event : events) {
+            emit(change, event, listener);
+        }
+    }
+
+    private void emit(Change change, Event event, Listener listener) throws IOException {
+        switch (change) {
+            case ADDED -> addedCount++;
+            case REMOVED -> removedCount++;
+            case COMMON -> commonCount++;
+        }
+        listener.accept(change, event);
+    }
+
+    // Reads a sorted events file one date at a time.
+    private static class DateGroupReader implements AutoCloseable {
+        private final Path path;
+        private final EventReader reader;
+        private Event next;
+        private LocalDate previousDate;
+
+        DateGroupReader(Path path) throws IOException {
+            this.path = path;
+            this.reader = EventReader.open(path);
+            this.next = reader.readEvent();
+        }
+
+        // Read all events of the next date, or an empty list at the end of the file.
+        List<Event> readGroup() throws IOException {
+            List<Event> group = new ArrayList<>();
+            if (next == null) {
+                return group;
+            }
+
+            LocalDate date = next.getDate();
+            if (previousDate != null && date.isBefore(previousDate)) {
+                throw new IOException(path + " is not sorted by date");
+            }
+            while (next != null && next.getDate().equals(date)) {
+                group.add(next);
+                next = reader.readEvent();
+            }
+            previousDate = date;
+            return group;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
\ No newline at end of file
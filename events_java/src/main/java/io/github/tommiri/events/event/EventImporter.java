@@ -0,0 +1,299 @@
+package io.github.tommiri.events.event;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Class for importing events from CSV files into the events file.
+ * <p>
+ * Inputs are streamed and sorted in runs of bounded size, which are
+ * spilled to temporary files and then merged together with the already
+ * sorted events file. This keeps memory use fixed regardless of how
+ * large the inputs are.
+ */
+public class EventImporter {
+    // Maximum number of runs merged at once, to bound open files
+    private static final int MAX_MERGE_FAN_IN = 64;
+
+    private final int runSize;
+    private final boolean dedup;
+    private long readCount = 0;
+    private long duplicateCount = 0;
+    private long removedCount = 0;
+
+    /**
+     * Constructs an importer.
+     *
+     * @param runSize maximum number of events sorted in memory at once
+     * @param dedup   whether to skip events with the same date, category
+     *                and description as an event already written
+     */
+    public EventImporter(int runSize, boolean dedup) {
+        this.runSize = runSize;
+        this.dedup = dedup;
+    }
+
+    /**
+     * Imports events from the given inputs into the events file.
+     * The events file is replaced only once the merge has succeeded.
+     *
+     * @param eventsPath the path to the events file
+     * @param inputs     the paths to the CSV files to import
+     * @throws IOException if reading or writing any of the files fails
+     */
+    public void importEvents(Path eventsPath, List<Path> inputs) throws IOException {
+        readCount = 0;
+        duplicateCount = 0;
+        removedCount = 0;
+
+        Path tempDir = Files.createTempDirectory("events-import");
+        try {
+            // Runs of existing and imported events are kept apart, so that
+            // skipped duplicates can be told apart from removed ones
+            List<Path> existingRuns = new ArrayList<>();
+            List<Path> importedRuns = new ArrayList<>();
+
+            // The events file is normally sorted already and can be merged
+            // as is. Sort it along with the inputs if it has been edited by hand.
+            if (isSorted(eventsPath)) {
+                existingRuns.add(eventsPath);
+            } else {
+                createRuns(eventsPath, tempDir, existingRuns, false);
+            }
+            for (Path input : inputs) {
+                createRuns(input, tempDir, importedRuns, true);
+            }
+
+            // Reduce the number of runs until they can all be merged at once
+            while (existingRuns.size() + importedRuns.size() > MAX_MERGE_FAN_IN) {
+                if (existingRuns.size() > importedRuns.size()) {
+                    existingRuns = reduceRuns(existingRuns, tempDir);
+                } else {
+                    importedRuns = reduceRuns(importedRuns, tempDir);
+                }
+            }
+
+            List<Path> sources = new ArrayList<>(existingRuns);
+            sources.addAll(importedRuns);
+
+            // Write next to the events file so it can be replaced atomically
+            Path output = Files.createTempFile(eventsPath.toAbsolutePath().getParent(), "events", ".tmp");
+            try {
+                merge(sources, output, dedup, existingRuns.size());
+                Files.move(output, eventsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(output);
+            }
+        } finally {
+            deleteDirectory(tempDir);
+        }
+
+        // Any cached query results refer to the previous contents
+        QueryCache.forEventsPath(eventsPath).invalidate();
+    }
+
+    /**
+     * Gets the number of events added to the events file by the last
+     * import, which excludes any skipped duplicates.
+     *
+     * @return the number of imported events
+     */
+    public long getImportedCount() {
+        return readCount - duplicateCount;
+    }
+
+    /**
+     * Gets the number of imported events skipped by the last import
+     * as duplicates.
+     *
+     * @return the number of skipped events
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * Gets the number of events already in the events file that the
+     * last import removed as duplicates of other events in the file.
+     *
+     * @return the number of removed events
+     */
+    public long getRemovedCount() {
+        return removedCount;
+    }
+
+    /**
+     * Method for checking if the events in a file are sorted by date
+     *
+     * @param path the path to the events file
+     * @return true if the file is sorted, otherwise false
+     * @throws IOException if reading the file fails
+     */
+    public static boolean isSorted(Path path) throws IOException {
+        try (EventReader reader = EventReader.open(path)) {
+            Event previous = null;
+            Event event;
+            while ((event = reader.readEvent()) != null) {
+                if (previous != null && previous.compareTo(event) > 0) {
+                    return false;
+                }
+                previous = event;
+            }
+        }
+        return true;
+    }
+
+    // Read the input in chunks of at most runSize events, sort each
+    // chunk and write it to its own temporary file.
+    private void createRuns(Path input, Path tempDir, List<Path> runs, boolean imported) throws IOException {
+        List<Event> chunk = new ArrayList<>(runSize);
+
+        try (EventReader reader = EventReader.open(input)) {
+            Event event;
+            while ((event = reader.readEvent()) != null) {
+                chunk.add(event);
+                if (imported) {
+                    readCount++;
+                }
+                if (chunk.size() == runSize) {
+                    runs.add(writeRun(chunk, tempDir));
+                    chunk.clear();
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            runs.add(writeRun(chunk, tempDir));
+        }
+    }
+
+    private static Path writeRun(List<Event> chunk, Path tempDir) throws IOException {
+        // Sort is stable, so events on the same date keep their input order
+        Collections.sort(chunk);
+
+        Path run = Files.createTempFile(tempDir, "run", ".csv");
+        try (EventWriter writer = new EventWriter(Files.newBufferedWriter(run, StandardCharsets.UTF_8))) {
+            for (Event event : chunk) {
+                writer.write(event);
+            }
+        }
+        return run;
+    }
+
+    // Merge groups of runs, each into a single run, with one pass over them.
+    // Merged runs are deleted right away, so that the runs take about as much
+    // space as the data at any time, but the events file itself is kept.
+    private List<Path> reduceRuns(List<Path> runs, Path tempDir) throws IOException {
+        List<Path> merged = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i += MAX_MERGE_FAN_IN) {
+            List<Path> group = runs.subList(i, Math.min(i + MAX_MERGE_FAN_IN, runs.size()));
+            Path output = Files.createTempFile(tempDir, "run", ".csv");
+            merge(group, output, false, 0);
+            merged.add(output);
+            for (Path run : group) {
+                if (run.startsWith(tempDir)) {
+                    Files.delete(run);
+                }
+            }
+        }
+        return merged;
+    }
+
+    // Merge sorted sources into the output with a k-way merge. Events on
+    // the same date are taken in source order, so existing events stay first.
+    // The given number of first sources hold the events already in the file.
+    private void merge(List<Path> sources, Path output, boolean skipDuplicates, int existingSources)
+            throws IOException {
+        List<EventReader> readers = new ArrayList<>();
+        PriorityQueue<Cursor> queue = new PriorityQueue<>();
+
+        try (EventWriter writer = new EventWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            for (int i = 0; i < sources.size(); i++) {
+                EventReader reader = EventReader.open(sources.get(i));
+                readers.add(reader);
+                Cursor cursor = new Cursor(reader, i);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+
+            // Duplicates share a date, so only keys seen on the
+            // current date need to be remembered
+            LocalDate currentDate = null;
+            Set<String> keysOnDate = new HashSet<>();
+
+            while (!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                Event event = cursor.current;
+
+                if (skipDuplicates) {
+                    if (!event.getDate().equals(currentDate)) {
+                        currentDate = event.getDate();
+                        keysOnDate.clear();
+                    }
+                    if (!keysOnDate.add(duplicateKey(event))) {
+                        if (cursor.sourceIndex < existingSources) {
+                            removedCount++;
+                        } else {
+                            duplicateCount++;
+                        }
+                        event = null;
+                    }
+                }
+
+                if (event != null) {
+                    writer.write(event);
+                }
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        } finally {
+            for (EventReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static String duplicateKey(Event event) {
+        return Objects.toString(event.getCategory(), "") + '\0' + event.getDescription();
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                Files.deleteIfExists(entry);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    // Current position in one of the sorted sources being merged
+    private static class Cursor implements Comparable<Cursor> {
+        private final EventReader reader;
+        private final int sourceIndex;
+        private Event current;
+
+        Cursor(EventReader reader, int sourceIndex) {
+            this.reader = reader;
+            this.sourceIndex = sourceIndex;
+        }
+
+        boolean advance() throws IOException {
+            current = reader.readEvent();
+            return current != null;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int result = current.compareTo(other.current);
+            return result != 0 ? result : Integer.compare(sourceIndex, other.sourceIndex);
+        }
+    }
+}
\ No newline at end of file
@@ -1,20 +1,12 @@
 package io.github.tommiri.events.event;
 
-import com.opencsv.CSVReaderHeaderAware;
-import com.opencsv.CSVWriterBuilder;
-import com.opencsv.ICSVParser;
-import com.opencsv.ICSVWriter;
-
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.Period;
-import java.time.format.DateTimeParseException;
 import java.util.*;
 
 /**
@@ -24,6 +16,9 @@ public class EventManager {
     // The singleton instance, created as necessary.
     private static EventManager instance = null;
     private List<Event> events;
+    // Built from the events on first use, and dropped when they change
+    private DateHistogram histogram;
+    private boolean sorted;
 
     // Private constructor to prevent instantiation.
     private EventManager() {
@@ -58,15 +53,43 @@ public class EventManager {
             System.out.println("No events found!");
         } else {
             for (Event event : events) {
-                System.out.print(event + " -- ");
+                printEvent(event.toString(), event, today);
+            }
+        }
+    }
 
-                Period difference = Period.between(event.getDate(), today);
+    /**
+     * Prints given list of events along with the files they are from
+     *
+     * @param events list of tagged events to print
+     */
+    public static void printTaggedEvents(List<TaggedEvent> events) {
+        LocalDate today = LocalDate.now();
 
-                System.out.println(Event.getDifferenceString(difference));
+        if (events.isEmpty()) {
+            System.out.println("No events found!");
+        } else {
+            for (TaggedEvent event : events) {
+                printEvent(event.toString(), event.getEvent(), today);
             }
         }
     }
 
+    /**
+     * Prints a single event followed by how long ago it happened
+     *
+     * @param text  text to print for the event
+     * @param event the event
+     * @param today date to count the time from
+     */
+    public static void printEvent(String text, Event event, LocalDate today) {
+        System.out.print(text + " -- ");
+
+        Period difference = Period.between(event.getDate(), today);
+
+        System.out.println(Event.getDifferenceString(difference));
+    }
+
     /**
      * Gets the path to the user's events file.
      *
@@ -101,28 +124,18 @@ public class EventManager {
      */
     public boolean loadEvents(Path eventsPath) {
         List<Event> newEvents = new ArrayList<Event>();
-
-        // Read all the lines from the events file using
-        // our helper based on opencsv.
-        try {
-            List<Map<String, String>> lineMaps = readLineByLine(eventsPath);
-
-            for (Map<String, String> map : lineMaps) {
-                LocalDate date;
-                String dateString = map.get("date");
-                try {
-                    date = LocalDate.parse(dateString);
-
-                    Event event = new Event(
-                            date,
-                            map.get("category"),
-                            map.get("description")
-                    );
-
-                    newEvents.add(event);
-                } catch (DateTimeParseException dtpe) {
-                    System.err.println("bad date: " + dateString);
+        boolean newSorted = true;
+
+        // Read the events from the events file one at a time
+        // using our streaming CSV reader.
+        try (EventReader reader = EventReader.open(eventsPath)) {
+            Event event;
+            while ((event = reader.readEvent()) != null) {
+                // Files written by us are sorted, but edited ones might not be
+                if (!newEvents.isEmpty() && newEvents.get(newEvents.size() - 1).compareTo(event) > 0) {
+                    newSorted = false;
                 }
+                newEvents.add(event);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -134,26 +147,12 @@ public class EventManager {
         // We'll just construct a new list and let the old
         // one be garbage collected.
         this.events = new ArrayList<Event>(newEvents);
+        this.histogram = null;
+        this.sorted = newSorted;
 
         return true;
     }
 
-    // Read the CSV file one line at a time using a header-aware
-    // CSV reader from the opencsv library. Discards invalid lines.
-    private List<Map<String, String>> readLineByLine(Path filePath)
-            throws Exception {
-        List<Map<String, String>> list = new ArrayList<>();
-        try (Reader reader = Files.newBufferedReader(filePath)) {
-            try (CSVReaderHeaderAware csvReader = new CSVReaderHeaderAware(reader)) {
-                Map<String, String> map;
-                while ((map = csvReader.readMap()) != null) {
-                    list.add(map);
-                }
-            }
-        }
-        return list;
-    }
-
     /**
      * Saves the events to the file at `eventsPath`.
      *
@@ -170,45 +169,24 @@ public class EventManager {
         // Sort events on save so added or deleted events don't just get
         // appended to the end
         Collections.sort(this.events);
+        this.sorted = true;
 
-        try {
-            Writer writer = Files.newBufferedWriter(
-                    eventsPath,
-                    StandardCharsets.UTF_8
-            );
-
-            ICSVWriter csvWriter = new CSVWriterBuilder(writer)
-                    .withSeparator(ICSVParser.DEFAULT_SEPARATOR)
-                    .withQuoteChar(ICSVParser.DEFAULT_QUOTE_CHARACTER)
-                    .withEscapeChar(ICSVParser.DEFAULT_ESCAPE_CHARACTER)
-                    .withLineEnd(ICSVWriter.DEFAULT_LINE_END)
-                    .build();
-
-            // Write the header row
-            csvWriter.writeNext(
-                    new String[]{
-                            "date",
-                            "category",
-                            "description"
-                    }
-            );
-
+        try (EventWriter eventWriter = new EventWriter(Files.newBufferedWriter(
+                eventsPath,
+                StandardCharsets.UTF_8
+        ))) {
             // Write the events to the CSV file
             for (Event event : this.events) {
-                String[] entries = new String[]{
-                        event.getDate().toString(),
-                        event.getCategory(),
-                        event.getDescription()
-                };
-                csvWriter.writeNext(entries);
+                eventWriter.write(event);
             }
-
-            csvWriter.close();
         } catch (IOException ioe) {
             ioe.printStackTrace();
             return false;
         }
 
+        // Any cached query results refer to the previous contents
+        QueryCache.forEventsPath(eventsPath).invalidate();
+
         return true;
     }
 
@@ -221,17 +199,48 @@ public class EventManager {
         return this.events;
     }
 
+    /**
+     * Method for checking if the events are in date order. Events are
+     * always sorted once saved, but may not be when loaded from a file
+     * edited by hand.
+     *
+     * @return true if the events are sorted by date, otherwise false
+     */
+    public boolean isSorted() {
+        return this.sorted;
+    }
+
+    /**
+     * Gets the histogram of events per day, building it on first use.
+     *
+     * @return the histogram
+     */
+    public DateHistogram getHistogram() {
+        if (this.histogram == null) {
+            this.histogram = new DateHistogram(this.events);
+        }
+        return this.histogram;
+    }
+
     /**
      * Inserts new event into existing event list.
      *
      * @param event event to insert
      */
     public void insertEvent(Event event) {
+        Path eventsPath = this.getEventsPath();
+        // Open the search index before saving, while it can
+        // still be checked against the current file
+        SearchIndex index = SearchIndex.open(eventsPath);
+
         this.events.add(event);
-        if (!this.saveEvents(this.getEventsPath())) {
+        if (!this.saveEvents(eventsPath)) {
             System.err.println("ERROR: Failed to save events to file!");
             System.exit(-1);
         }
+        // The histogram is rebuilt from the changed events when next needed
+        this.histogram = null;
+        updateSearchIndex(eventsPath, index, List.of(event), List.of());
         System.out.println("Successfully added new event!");
     }
 
@@ -241,14 +250,28 @@ public class EventManager {
      * @param events events to replace existing events with
      */
     public void replaceEvents(List<Event> events) {
-        int previousSize = this.events.size();
+        Path eventsPath = this.getEventsPath();
+        SearchIndex index = SearchIndex.open(eventsPath);
+        List<Event> previousEvents = this.events;
+        int previousSize = previousEvents.size();
 
         this.events = events;
-        if (!this.saveEvents(this.getEventsPath())) {
+        if (!this.saveEvents(eventsPath)) {
             System.err.println("ERROR: Failed to save events to file!");
             System.exit(-1);
         }
 
+        this.histogram = null;
+
+        if (index != null) {
+            List<Event> removed = getRemovedEvents(previousEvents, events);
+            // saveEvents leaves the file untouched when there are no
+            // events, so the index still matches it in that case
+            if (!events.isEmpty()) {
+                updateSearchIndex(eventsPath, index, List.of(), removed);
+            }
+        }
+
         // If new events are the same length as previously, no items were deleted
         if (previousSize == events.size()) {
             System.out.println("No events affected!");
@@ -257,6 +280,49 @@ public class EventManager {
         }
     }
 
+    // Update the search index, if one has been created, with the changes just
+    // saved to the events file. An index that was already out of date is rebuilt.
+    private void updateSearchIndex(Path eventsPath, SearchIndex index, List<Event> added, List<Event> removed) {
+        if (index == null) {
+            return;
+        }
+
+        if (index.isStale()) {
+            index = SearchIndex.build(this.events);
+        } else {
+            added.forEach(index::add);
+            removed.forEach(index::remove);
+        }
+
+        try {
+            index.save(eventsPath);
+        } catch (IOException ioe) {
+            // The index will be found out of date and rebuilt on the next search
+            System.err.println("Failed to update search index");
+        }
+    }
+
+    // Get the events that are in previous events but not in current events,
+    // counting identical events separately.
+    private static List<Event> getRemovedEvents(List<Event> previousEvents, List<Event> currentEvents) {
+        Map<Long, Integer> remaining = new HashMap<>();
+        for (Event event : currentEvents) {
+            remaining.merge(SearchIndex.eventId(event), 1, Integer::sum);
+        }
+
+        List<Event> removed = new ArrayList<>();
+        for (Event event : previousEvents) {
+            long id = SearchIndex.eventId(event);
+            int count = remaining.getOrDefault(id, 0);
+            if (count > 0) {
+                remaining.put(id, count - 1);
+            } else {
+                removed.add(event);
+            }
+        }
+        return removed;
+    }
+
     /**
      * Gets a sorted list of all the categories across all events.
      *
@@ -0,0 +1,236 @@
+package io.github.tommiri.events.event;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for events stored in CSV format.
+ * <p>
+ * Understands the same format that the events file is written in,
+ * including quoted fields, doubled quotes and backslash escapes,
+ * without having to load the opencsv library. Columns are located
+ * by the header row, so their order does not matter.
+ * <p>
+ * A reader keeps the position in its input, including the number of the
+ * current record used in error messages, without any synchronization.
+ * It may be handed over to another thread, but must only be used by one
+ * thread at a time.
+ */
+public class EventReader implements Closeable {
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char ESCAPE = '\\';
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> record = new ArrayList<>();
+    // Character read ahead of the current position, or -2 if none
+    private int peeked = -2;
+    private long recordNumber = 0;
+    private boolean reportInvalidDates = true;
+
+    private final int headerSize;
+    private final int dateIndex;
+    private final int categoryIndex;
+    private final int descriptionIndex;
+
+    /**
+     * Constructs a reader and reads the header row from the given reader.
+     *
+     * @param reader the reader to read from
+     * @throws IOException if the header cannot be read or is missing columns
+     */
+    public EventReader(Reader reader) throws IOException {
+        this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+
+        String[] header = readRecord();
+        if (header == null) {
+            throw new IOException("Missing header row");
+        }
+        this.headerSize = header.length;
+        this.dateIndex = indexOf(header, "date");
+        this.categoryIndex = indexOf(header, "category");
+        this.descriptionIndex = indexOf(header, "description");
+    }
+
+    /**
+     * Opens a reader for the events file at the given path.
+     *
+     * @param path the path to the events file
+     * @return the reader
+     * @throws IOException if the file cannot be opened or has an invalid header
+     */
+    public static EventReader open(Path path) throws IOException {
+        Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        try {
+            return new EventReader(reader);
+        } catch (IOException ioe) {
+            reader.close();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Sets whether rows with invalid dates are reported to standard
+     * error before they are skipped. Enabled by default.
+     *
+     * @param reportInvalidDates true to report invalid dates, otherwise false
+     */
+    public void setReportInvalidDates(boolean reportInvalidDates) {
+        this.reportInvalidDates = reportInvalidDates;
+    }
+
+    /**
+     * Reads the next event. Rows with invalid dates are reported
+     * and skipped.
+     *
+     * @return the event, or null if the end of input was reached
+     * @throws IOException if reading fails or a row has the wrong number of columns
+     */
+    public Event readEvent() throws IOException {
+        String[] values;
+        while ((values = readRecord()) != null) {
+            Event event = toEvent(values);
+            if (event != null) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Converts a raw record read from the input into an event.
+     * Rows with invalid dates are reported and skipped.
+     *
+     * @param values the values of the record
+     * @return the event, or null if the row has an invalid date
+     * @throws IOException if the record has the wrong number of columns
+     */
+    public Event toEvent(String[] values) throws IOException {
+        if (values.length != headerSize) {
+            throw new IOException("Error on record number " + recordNumber
+                    + ": number of data items is not the same as the number of header items");
+        }
+
+        String dateString = values[dateIndex];
+        try {
+            return new Event(
+                    LocalDate.parse(dateString),
+                    values[categoryIndex],
+                    values[descriptionIndex]
+            );
+        } catch (DateTimeParseException dtpe) {
+            if (reportInvalidDates) {
+                System.err.println("bad date: " + dateString);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reads the next record without interpreting its values.
+     * Empty lines are skipped.
+     *
+     * @return the values of the record, or null if the end of input was reached
+     * @throws IOException if reading fails
+     */
+    public String[] readRecord() throws IOException {
+        record.clear();
+        field.setLength(0);
+
+        boolean inQuotes = false;
+        boolean empty = true;
+        int c;
+        while ((c = read()) != -1) {
+            if (inQuotes) {
+                if (c == ESCAPE) {
+                    // Backslash only escapes quotes and itself
+                    int next = peek();
+                    if (next == QUOTE || next == ESCAPE) {
+                        field.append((char) read());
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == QUOTE) {
+                    // Doubled quote inside quotes is a literal quote
+                    if (peek() == QUOTE) {
+                        field.append((char) read());
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == QUOTE) {
+                inQuotes = true;
+                empty = false;
+            } else if (c == SEPARATOR) {
+                record.add(field.toString());
+                field.setLength(0);
+                empty = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                if (!empty || field.length() > 0) {
+                    break;
+                }
+            } else {
+                field.append((char) c);
+                empty = false;
+            }
+        }
+
+        if (c == -1 && empty && field.length() == 0) {
+            return null;
+        }
+
+        record.add(field.toString());
+        recordNumber++;
+        return record.toArray(new String[0]);
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    private static int indexOf(String[] header, String column) throws IOException {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(column)) {
+                return i;
+            }
+        }
+        throw new IOException("Missing column \"" + column + "\" in header row");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package io.github.tommiri.events.event;
+
+import com.opencsv.CSVWriterBuilder;
+import com.opencsv.ICSVParser;
+import com.opencsv.ICSVWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer for events in the CSV format of the events file.
+ * <p>
+ * Kept separate from {@link EventManager} so that the opencsv
+ * library is only loaded when events are actually written.
+ */
+public class EventWriter implements Closeable {
+    private final ICSVWriter csvWriter;
+
+    /**
+     * Constructs a writer and writes the header row to the given writer.
+     *
+     * @param writer the writer to write to
+     */
+    public EventWriter(Writer writer) {
+        this.csvWriter = new CSVWriterBuilder(writer)
+                .withSeparator(ICSVParser.DEFAULT_SEPARATOR)
+                .withQuoteChar(ICSVParser.DEFAULT_QUOTE_CHARACTER)
+                .withEscapeChar(ICSVParser.DEFAULT_ESCAPE_CHARACTER)
+                .withLineEnd(ICSVWriter.DEFAULT_LINE_END)
+                .build();
+
+        // Write the header row
+        csvWriter.writeNext(
+                new String[]{
+                        "date",
+                        "category",
+                        "description"
+                }
+        );
+    }
+
+    /**
+     * Writes an event as a single row.
+     *
+     * @param event the event to write
+     */
+    public void write(Event event) {
+        String[] entries = new String[]{
+                event.getDate().toString(),
+                event.getCategory(),
+                event.getDescription()
+        };
+        csvWriter.writeNext(entries);
+    }
+
+    /**
+     * Writes out any buffered rows to the underlying writer.
+     *
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        csvWriter.flush();
+    }
+
+    /**
+     * Flushes and closes the underlying writer.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        csvWriter.close();
+    }
+}
\ No newline at end of file
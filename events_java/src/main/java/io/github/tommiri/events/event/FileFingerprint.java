@@ -0,0 +1,43 @@
+package io.github.tommiri.events.event;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+/**
+ * Utility class for identifying a specific version of a file
+ * by its size, modification time and checksum.
+ */
+public class FileFingerprint {
+    // Size of the buffer used when computing the checksum
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Method for computing the fingerprint of a file
+     *
+     * @param path path to the file
+     * @return the fingerprint in the form "size:mtime:checksum"
+     * @throws IOException if the file cannot be read
+     */
+    public static String of(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+        // Checksum the whole file so that edits that keep the size
+        // and modification time intact are still detected
+        CRC32C checksum = new CRC32C();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                checksum.update(buffer, 0, read);
+            }
+        }
+
+        return attributes.size() + ":"
+                + attributes.lastModifiedTime().toMillis() + ":"
+                + Long.toHexString(checksum.getValue());
+    }
+}
\ No newline at end of file
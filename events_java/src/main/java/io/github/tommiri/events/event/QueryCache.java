@@ -0,0 +1,260 @@
+package io.github.tommiri.events.event;
+
+import io.github.tommiri.events.utils.HashUtils;
+
+import java.io.BufferedReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache for query results.
+ * <p>
+ * Entries are keyed by the fingerprint of the events file together
+ * with a normalized form of the query, and hold the matching events.
+ * The least recently used entries are evicted once the cache grows
+ * past its size cap.
+ */
+public class QueryCache {
+    // Maximum total size of all cache entries in bytes
+    private static final long MAX_CACHE_BYTES = 4L * 1024 * 1024;
+    // File extension of cache entries
+    private static final String ENTRY_EXTENSION = ".csv";
+
+    private final Path cacheDir;
+
+    /**
+     * Constructs a cache that stores its entries in the given directory.
+     *
+     * @param cacheDir the cache directory
+     */
+    public QueryCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Gets the cache belonging to the given events file.
+     * The cache is stored in the "cache" directory next to the file.
+     *
+     * @param eventsPath the path to the events file
+     * @return the cache
+     */
+    public static QueryCache forEventsPath(Path eventsPath) {
+        return new QueryCache(eventsPath.toAbsolutePath().getParent().resolve("cache"));
+    }
+
+    /**
+     * Creates the key of a query against the current contents of an
+     * events file. Creating the key reads the whole file, so the same
+     * key should be used for looking up and storing the result.
+     *
+     * @param eventsPath the path to the events file the query is run against
+     * @param query      normalized form of the query
+     * @return the key, or null if the events file cannot be read
+     */
+    public static String createKey(Path eventsPath, String query) {
+        try {
+            return eventsPath.toAbsolutePath() + "|" + FileFingerprint.of(eventsPath) + "|" + query;
+        } catch (IOException ioe) {
+            // Without a key, results are neither looked up nor stored
+            return null;
+        }
+    }
+
+    /**
+     * Looks up the cached result of a query.
+     *
+     * @param key key of the query, as created by {@link #createKey}
+     * @return the matching events, or null if the result is not cached
+     */
+    public List<Event> lookup(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        try {
+            Path entry = entryPath(key);
+            if (Files.notExists(entry)) {
+                return null;
+            }
+
+            List<Event> events = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(entry, StandardCharsets.UTF_8)) {
+                // First line holds the full key to guard against hash collisions
+                if (!key.equals(reader.readLine())) {
+                    return null;
+                }
+
+                EventReader eventReader = new EventReader(reader);
+                Event event;
+                while ((event = eventReader.readEvent()) != null) {
+                    events.add(event);
+                }
+            }
+
+            // Mark entry as most recently used
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return events;
+        } catch (Exception e) {
+            // Cache is best effort, so any failure is treated as a miss
+            return null;
+        }
+    }
+
+    /**
+     * Stores the result of a query. Results that would not fit
+     * in the cache on their own are not stored.
+     *
+     * @param key    key of the query, as created by {@link #createKey}
+     * @param events the matching events
+     */
+    public void store(String key, List<Event> events) {
+        if (key == null) {
+            return;
+        }
+
+        Path tempFile = null;
+        try {
+            Files.createDirectories(cacheDir);
+
+            // Write to a temporary file first so concurrent readers
+            // never see a partially written entry
+            tempFile = Files.createTempFile(cacheDir, "entry", ".tmp");
+            LimitedWriter writer = new LimitedWriter(Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8));
+            try (writer) {
+                writer.write(key);
+                writer.write('\n');
+
+                EventWriter eventWriter = new EventWriter(writer);
+                for (Event event : events) {
+                    if (writer.isFull()) {
+                        break;
+                    }
+                    eventWriter.write(event);
+                }
+                eventWriter.close();
+            }
+            if (writer.isFull() || Files.size(tempFile) > MAX_CACHE_BYTES) {
+                // Storing the entry would evict every other entry and then itself
+                return;
+            }
+            Files.move(tempFile, entryPath(key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            evict();
+        } catch (Exception e) {
+            // Failing to cache a result must never fail the query itself
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ioe) {
+                    // Leftover temporary files are harmless
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void invalidate() {
+        if (Files.notExists(cacheDir)) {
+            return;
+        }
+
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                Files.deleteIfExists(entry);
+            }
+        } catch (IOException ioe) {
+            System.err.println("Failed to clear query cache in " + cacheDir);
+        }
+    }
+
+    // Delete least recently used entries until the cache fits within its size cap.
+    private void evict() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            entries = stream.filter(path -> path.toString().endsWith(ENTRY_EXTENSION))
+                    .sorted(Comparator.comparing(QueryCache::lastModified))
+                    .toList();
+        }
+
+        long totalSize = 0;
+        for (Path entry : entries) {
+            totalSize += Files.size(entry);
+        }
+
+        for (Path entry : entries) {
+            if (totalSize <= MAX_CACHE_BYTES) {
+                break;
+            }
+            totalSize -= Files.size(entry);
+            Files.deleteIfExists(entry);
+        }
+    }
+
+    // Name entries by a 64-bit FNV-1a hash of the key. A cryptographic
+    // digest is not needed since entries store their full key, and
+    // initializing the security providers would slow down every lookup.
+    private Path entryPath(String key) {
+        return cacheDir.resolve(Long.toHexString(HashUtils.fnv1a64(key)) + ENTRY_EXTENSION);
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException ioe) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    // Writer that stops writing once more characters than fit in the cache have
+    // been written, so that oversized results are abandoned early. Each character
+    // takes at least one byte, so the limit is never hit early. The CSV writer
+    // ignores write errors, so callers have to check isFull.
+    private static class LimitedWriter extends FilterWriter {
+        private long written = 0;
+
+        LimitedWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            count(1);
+            super.write(c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            count(len);
+            super.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            count(len);
+            super.write(str, off, len);
+        }
+
+        boolean isFull() {
+            return written > MAX_CACHE_BYTES;
+        }
+
+        private void count(int len) throws IOException {
+            written += len;
+            if (isFull()) {
+                throw new IOException("Result too large to cache");
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,379 @@
+package io.github.tommiri.events.event;
+
+import io.github.tommiri.events.utils.HashUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Persisted inverted index over event descriptions.
+ * <p>
+ * Maps each word to a sorted posting list of the ids of the events
+ * whose description contains it. Postings are stored delta-encoded and
+ * only decoded when a word is actually searched for or updated. The
+ * index remembers the fingerprint of the events file it describes, so
+ * changes made outside the program are detected and the index can be
+ * rebuilt.
+ */
+public class SearchIndex {
+    // Identifies the file format of the index
+    private static final int MAGIC = 0x45564958;
+    private static final int VERSION = 1;
+    // Longer words are truncated, so that any word can be stored
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private final Map<String, Postings> postings;
+    private final boolean stale;
+
+    // Private constructor, use the static factory methods instead.
+    private SearchIndex(Map<String, Postings> postings, boolean stale) {
+        this.postings = postings;
+        this.stale = stale;
+    }
+
+    /**
+     * Gets the path to the index belonging to the given events file.
+     *
+     * @param eventsPath the path to the events file
+     * @return the path to the index
+     */
+    public static Path getIndexPath(Path eventsPath) {
+        return eventsPath.toAbsolutePath().getParent().resolve("search.idx");
+    }
+
+    /**
+     * Builds a new index from the given events.
+     *
+     * @param events events to index
+     * @return the index
+     */
+    public static SearchIndex build(List<Event> events) {
+        // Collect the ids of each word first and sort them once,
+        // instead of inserting them one at a time
+        Map<String, long[]> ids = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        for (Event event : events) {
+            long id = eventId(event);
+            for (String token : new HashSet<>(tokenize(event.getDescription()))) {
+                int size = sizes.getOrDefault(token, 0);
+                long[] tokenIds = ids.get(token);
+                if (tokenIds == null || tokenIds.length == size) {
+                    tokenIds = Arrays.copyOf(tokenIds == null ? new long[0] : tokenIds, Math.max(4, size * 2));
+                    ids.put(token, tokenIds);
+                }
+                tokenIds[size] = id;
+                sizes.put(token, size + 1);
+            }
+        }
+
+        Map<String, Postings> postings = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : ids.entrySet()) {
+            long[] tokenIds = Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey()));
+            Arrays.sort(tokenIds);
+            postings.put(entry.getKey(), new Postings(tokenIds));
+        }
+        return new SearchIndex(postings, false);
+    }
+
+    /**
+     * Opens the index belonging to the given events file. If the events
+     * file has changed since the index was saved, or the index cannot be
+     * read, the returned index is empty and marked as stale.
+     *
+     * @param eventsPath the path to the events file
+     * @return the index, or null if no index has been created
+     */
+    public static SearchIndex open(Path eventsPath) {
+        Path indexPath = getIndexPath(eventsPath);
+        if (Files.notExists(indexPath)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !in.readUTF().equals(FileFingerprint.of(eventsPath))) {
+                return new SearchIndex(new HashMap<>(), true);
+            }
+
+            int tokenCount = in.readInt();
+            Map<String, Postings> postings = new HashMap<>(tokenCount * 2);
+            for (int i = 0; i < tokenCount; i++) {
+                String token = in.readUTF();
+                int size = in.readInt();
+                byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                postings.put(token, new Postings(encoded, size));
+            }
+            return new SearchIndex(postings, false);
+        } catch (IOException ioe) {
+            return new SearchIndex(new HashMap<>(), true);
+        }
+    }
+
+    /**
+     * Saves the index next to the given events file, tied to
+     * the current contents of the file.
+     *
+     * @param eventsPath the path to the events file
+     * @throws IOException if writing the index fails
+     */
+    public void save(Path eventsPath) throws IOException {
+        Path indexPath = getIndexPath(eventsPath);
+        Path tempFile = Files.createTempFile(indexPath.getParent(), "search", ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(FileFingerprint.of(eventsPath));
+                out.writeInt(postings.size());
+                for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                    Postings tokenPostings = entry.getValue();
+                    byte[] encoded = tokenPostings.encoded();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(tokenPostings.size);
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+            }
+            Files.move(tempFile, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Method for checking if the index no longer matches its events file
+     *
+     * @return true if the index has to be rebuilt, otherwise false
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Adds an event to the index.
+     *
+     * @param event event to add
+     */
+    public void add(Event event) {
+        long id = eventId(event);
+        for (String token : new HashSet<>(tokenize(event.getDescription()))) {
+            postings.computeIfAbsent(token, t -> new Postings(new long[0])).add(id);
+        }
+    }
+
+    /**
+     * Removes an event from the index.
+     *
+     * @param event event to remove
+     */
+    public void remove(Event event) {
+        long id = eventId(event);
+        for (String token : new HashSet<>(tokenize(event.getDescription()))) {
+            Postings tokenPostings = postings.get(token);
+            if (tokenPostings != null && tokenPostings.remove(id) && tokenPostings.size == 0) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * Searches for events whose descriptions contain all words of the given terms.
+     *
+     * @param terms words to search for
+     * @return sorted ids of matching events, see {@link #eventId(Event)}
+     */
+    public long[] search(String terms) {
+        List<Postings> matches = new ArrayList<>();
+        for (String token : new HashSet<>(tokenize(terms))) {
+            Postings tokenPostings = postings.get(token);
+            if (tokenPostings == null) {
+                return new long[0];
+            }
+            matches.add(tokenPostings);
+        }
+        if (matches.isEmpty()) {
+            return new long[0];
+        }
+
+        // Intersect starting from the shortest list, so every
+        // step can only shrink the candidates
+        matches.sort(Comparator.comparingInt(p -> p.size));
+
+        long[] result = distinct(matches.get(0).ids());
+        int size = result.length;
+        for (int i = 1; i < matches.size() && size > 0; i++) {
+            long[] other = matches.get(i).ids();
+            int kept = 0;
+            int from = 0;
+            for (int j = 0; j < size; j++) {
+                // Candidates are sorted, so each search can start where the previous ended
+                int found = Arrays.binarySearch(other, from, other.length, result[j]);
+                if (found >= 0) {
+                    result[kept++] = result[j];
+                    from = found;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Gets the id of an event, which is a hash of its date,
+     * category and description. Identical events share an id.
+     *
+     * @param event the event
+     * @return the id
+     */
+    public static long eventId(Event event) {
+        long hash = HashUtils.fnv1a64(event.getDate().toString());
+        hash = HashUtils.fnv1a64(hash, "\0" + Objects.toString(event.getCategory(), ""));
+        hash = HashUtils.fnv1a64(hash, "\0" + event.getDescription());
+        return HashUtils.mix(hash);
+    }
+
+    /**
+     * Splits text into lowercase words, ignoring punctuation.
+     *
+     * @param text text to split
+     * @return the words in order of appearance
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (sb.length() < MAX_TOKEN_LENGTH) {
+                    sb.append(Character.toLowerCase(c));
+                }
+            } else if (sb.length() > 0) {
+                tokens.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    private static long[] distinct(long[] sorted) {
+        int size = 0;
+        long[] result = new long[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                result[size++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    // Posting list of a single word. Kept in its encoded form until needed.
+    // The same id can appear more than once, since identical events share an id.
+    private static class Postings {
+        private byte[] encoded;
+        private long[] ids;
+        private int size;
+
+        Postings(long[] ids) {
+            this.ids = ids;
+            this.size = ids.length;
+        }
+
+        Postings(byte[] encoded, int size) {
+            this.encoded = encoded;
+            this.size = size;
+        }
+
+        long[] ids() {
+            if (ids == null) {
+                ids = decode(encoded, size);
+            }
+            return ids;
+        }
+
+        byte[] encoded() {
+            if (encoded == null) {
+                encoded = encode(ids);
+            }
+            return encoded;
+        }
+
+        void add(long id) {
+            long[] current = ids();
+            int index = Arrays.binarySearch(current, id);
+            int insertAt = index >= 0 ? index : -index - 1;
+
+            long[] updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = id;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+
+            ids = updated;
+            size = updated.length;
+            encoded = null;
+        }
+
+        boolean remove(long id) {
+            long[] current = ids();
+            int index = Arrays.binarySearch(current, id);
+            if (index < 0) {
+                return false;
+            }
+
+            long[] updated = new long[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+
+            ids = updated;
+            size = updated.length;
+            encoded = null;
+            return true;
+        }
+
+        // Store the gaps between sorted ids as variable-length integers.
+        // Gaps wrap around on overflow, which decoding reverses.
+        private static byte[] encode(long[] ids) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(ids.length * 4);
+            long previous = 0;
+            for (long id : ids) {
+                long delta = id - previous;
+                while ((delta & ~0x7FL) != 0) {
+                    out.write((int) ((delta & 0x7F) | 0x80));
+                    delta >>>= 7;
+                }
+                out.write((int) delta);
+                previous = id;
+            }
+            return out.toByteArray();
+        }
+
+        private static long[] decode(byte[] encoded, int size) {
+            long[] ids = new long[size];
+            long previous = 0;
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = encoded[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                previous += delta;
+                ids[i] = previous;
+            }
+            return ids;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package io.github.tommiri.events.event;
+
+/**
+ * Represents an event along with the file it was read from.
+ */
+public class TaggedEvent {
+    private final String source;
+    private final Event event;
+
+    /**
+     * Constructs a tagged event.
+     *
+     * @param source name of the file the event was read from
+     * @param event  the event
+     */
+    public TaggedEvent(String source, Event event) {
+        this.source = source;
+        this.event = event;
+    }
+
+    /**
+     * Gets the name of the file the event was read from.
+     *
+     * @return the source name
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Gets the event.
+     *
+     * @return the event
+     */
+    public Event getEvent() {
+        return this.event;
+    }
+
+    /**
+     * Returns a string representation of this event, prefixed with its source.
+     *
+     * @return the event string
+     */
+    @Override
+    public String toString() {
+        return "[" + this.source + "] " + this.event;
+    }
+}
\ No newline at end of file
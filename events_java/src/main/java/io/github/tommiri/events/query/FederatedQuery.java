@@ -0,0 +1,205 @@
+package io.github.tommiri.events.query;
+
+import io.github.tommiri.events.event.Event;
+import io.github.tommiri.events.event.EventReader;
+import io.github.tommiri.events.event.TaggedEvent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Query run over several events files at once.
+ * <p>
+ * Each file is streamed and filtered on its own thread, keeping only
+ * the matching events, so memory use depends on the size of the result
+ * rather than of the files. The per-file results are sorted by date and
+ * then merged into a single result in date order.
+ */
+public class FederatedQuery {
+    private final QueryNode query;
+    private final List<Path> sources;
+
+    /**
+     * Constructs a query over the given files.
+     *
+     * @param query   the query
+     * @param sources the paths to the events files
+     */
+    public FederatedQuery(QueryNode query, List<Path> sources) {
+        this.query = QueryPlanner.simplify(query);
+        this.sources = sources;
+    }
+
+    /**
+     * Gets the names events from the given files are tagged with. Each
+     * name is the file name without its extension, preceded by as many
+     * parent directories as are needed to tell apart different files
+     * with the same name, such as "work/events" and "home/events".
+     *
+     * @param paths the paths to the events files
+     * @return the names, in the order of the paths
+     */
+    public static List<String> getSourceNames(List<Path> paths) {
+        List<Path> absolutePaths = paths.stream().map(path -> path.toAbsolutePath().normalize()).toList();
+
+        List<String> names = new ArrayList<>(paths.size());
+        for (Path path : absolutePaths) {
+            int depth = 1;
+            while (depth < path.getNameCount() && isSuffixShared(path, depth, absolutePaths)) {
+                depth++;
+            }
+            String name = path.subpath(path.getNameCount() - depth, path.getNameCount()).toString();
+            names.add(name.endsWith(".csv") ? name.substring(0, name.length() - ".csv".length()) : name);
+        }
+        return names;
+    }
+
+    /**
+     * Runs the query and collects the matching events of all files.
+     *
+     * @return list of matching events in date order, with events
+     * on the same date in the order of the files
+     * @throws IOException if reading any of the files fails
+     */
+    public List<TaggedEvent> run() throws IOException {
+        if (query instanceof QueryNode.Constant constant && !constant.value()) {
+            return new ArrayList<>();
+        }
+        FilterKernel filter = query instanceof QueryNode.Constant ? null : FilterKernel.compile(query);
+
+        int threads = Math.min(sources.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+        try {
+            List<Future<List<Event>>> futures = new ArrayList<>();
+            for (Path source : sources) {
+                futures.add(executor.submit(() -> readMatching(source, filter)));
+            }
+
+            List<List<Event>> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(getResult(futures.get(i), sources.get(i)));
+            }
+            return merge(results);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Describes how the query is run.
+     *
+     * @return the description, one step per line
+     */
+    public String explain() {
+        FilterKernel filter = query instanceof QueryNode.Constant ? null : FilterKernel.compile(query);
+
+        return "Query:  " + query + "\n"
+                + "Access: parallel scan of " + sources.size() + " file(s), merged by date\n"
+                + "Filter: " + (filter == null ? "none" : query + ", " + filter.size() + " instruction(s)");
+    }
+
+    // Check if another file ends with the same given number of path elements as a file.
+    // The same file given more than once is not told apart from itself.
+    private static boolean isSuffixShared(Path path, int depth, List<Path> paths) {
+        Path suffix = path.subpath(path.getNameCount() - depth, path.getNameCount());
+        for (Path other : paths) {
+            if (!other.equals(path) && other.getNameCount() >= depth
+                    && other.subpath(other.getNameCount() - depth, other.getNameCount()).equals(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Wait for the events read from a file, passing on any failure to read it.
+    private static List<Event> getResult(Future<List<Event>> future, Path source) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IOException("Failed to read " + source, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + source, e);
+        }
+    }
+
+    // Read the matching events of a file, sorted by date.
+    private static List<Event> readMatching(Path source, FilterKernel filter) throws IOException {
+        List<Event> result = new ArrayList<>();
+        boolean sorted = true;
+
+        try (EventReader reader = EventReader.open(source)) {
+            Event event;
+            while ((event = reader.readEvent()) != null) {
+                if (filter == null || filter.matches(event)) {
+                    if (!result.isEmpty() && result.get(result.size() - 1).compareTo(event) > 0) {
+                        sorted = false;
+                    }
+                    result.add(event);
+                }
+            }
+        }
+
+        // Files edited by hand might not be sorted, so sort the matches
+        if (!sorted) {
+            result.sort(null);
+        }
+        return result;
+    }
+
+    // Merge the sorted results of each file with a heap of the next event of each.
+    private List<TaggedEvent> merge(List<List<Event>> results) {
+        int size = 0;
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Comparator
+                .comparing((Cursor cursor) -> cursor.current())
+                .thenComparingInt(cursor -> cursor.source));
+        for (int i = 0; i < results.size(); i++) {
+            size += results.get(i).size();
+            if (!results.get(i).isEmpty()) {
+                heap.add(new Cursor(i, results.get(i)));
+            }
+        }
+
+        List<String> names = getSourceNames(sources);
+        List<TaggedEvent> merged = new ArrayList<>(size);
+        while (!heap.isEmpty()) {
+            Cursor cursor = heap.poll();
+            merged.add(new TaggedEvent(names.get(cursor.source), cursor.current()));
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    // Position in the result of one file
+    private static class Cursor {
+        private final int source;
+        private final List<Event> events;
+        private int index = 0;
+
+        Cursor(int source, List<Event> events) {
+            this.source = source;
+            this.events = events;
+        }
+
+        Event current() {
+            return events.get(index);
+        }
+
+        boolean advance() {
+            return ++index < events.size();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package io.github.tommiri.events.query;
+
+import io.github.tommiri.events.event.Event;
+import io.github.tommiri.events.event.SearchIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Query compiled into a flat program that checks single events.
+ * <p>
+ * Instead of a chain of predicate objects calling each other, the whole
+ * query is run by one loop over an array of instructions, with all
+ * constants such as dates and category sets resolved in advance. AND and
+ * OR nodes are compiled into conditional jumps, so they short-circuit
+ * just like the operators of the language.
+ */
+public final class FilterKernel {
+    // Instructions that set the result register
+    private static final int CONSTANT = 0;
+    private static final int DATE_IN = 1;
+    private static final int CATEGORY_IN = 2;
+    private static final int DESCRIPTION_PREFIX = 3;
+    private static final int SEARCH_RESULTS = 4;
+    private static final int SEARCH_WORDS = 5;
+    // Instructions that inspect or invert the result register
+    private static final int NOT = 6;
+    private static final int JUMP_IF_FALSE = 7;
+    private static final int JUMP_IF_TRUE = 8;
+
+    private final int[] instructions;
+    private final int[] operands;
+    private final LocalDate[] rangeStarts;
+    private final LocalDate[] rangeEnds;
+    private final Set<?>[] categorySets;
+    private final String[] prefixes;
+    private final long[][] searchIds;
+    private final List<?>[] searchWords;
+
+    // Private constructor, use compile instead.
+    private FilterKernel(Compiler compiler) {
+        this.instructions = compiler.instructions.stream().mapToInt(Integer::intValue).toArray();
+        this.operands = compiler.operands.stream().mapToInt(Integer::intValue).toArray();
+        this.rangeStarts = compiler.rangeStarts.toArray(new LocalDate[0]);
+        this.rangeEnds = compiler.rangeEnds.toArray(new LocalDate[0]);
+        this.categorySets = compiler.categorySets.toArray(new Set<?>[0]);
+        this.prefixes = compiler.prefixes.toArray(new String[0]);
+        this.searchIds = compiler.searchIds.toArray(new long[0][]);
+        this.searchWords = compiler.searchWords.toArray(new List<?>[0]);
+    }
+
+    /**
+     * Compiles a query into a kernel.
+     *
+     * @param query the query
+     * @return the kernel
+     */
+    public static FilterKernel compile(QueryNode query) {
+        Compiler compiler = new Compiler();
+        compiler.compile(query);
+        return new FilterKernel(compiler);
+    }
+
+    /**
+     * Method for checking if an event matches the query
+     *
+     * @param event event to check
+     * @return true if the event matches, otherwise false
+     */
+    public boolean matches(Event event) {
+        boolean result = true;
+        for (int pc = 0; pc < instructions.length; pc++) {
+            int operand = operands[pc];
+            switch (instructions[pc]) {
+                case CONSTANT -> result = operand != 0;
+                case DATE_IN -> {
+                    LocalDate date = event.getDate();
+                    LocalDate start = rangeStarts[operand];
+                    LocalDate end = rangeEnds[operand];
+                    result = (start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end));
+                }
+                case CATEGORY_IN -> result = categorySets[operand].contains(event.getCategory());
+                case DESCRIPTION_PREFIX -> result = event.getDescription().startsWith(prefixes[operand]);
+                case SEARCH_RESULTS ->
+                        result = Arrays.binarySearch(searchIds[operand], SearchIndex.eventId(event)) >= 0;
+                case SEARCH_WORDS -> result = new HashSet<>(SearchIndex.tokenize(event.getDescription()))
+                        .containsAll(searchWords[operand]);
+                case NOT -> result = !result;
+                // Jump targets are one past the end of the AND or OR
+                case JUMP_IF_FALSE -> {
+                    if (!result) {
+                        pc = operand - 1;
+                    }
+                }
+                case JUMP_IF_TRUE -> {
+                    if (result) {
+                        pc = operand - 1;
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown instruction " + instructions[pc]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of instructions in the program.
+     *
+     * @return the number of instructions
+     */
+    public int size() {
+        return instructions.length;
+    }
+
+    // Emits the instructions and constant pools of a query.
+    private static class Compiler {
+        private final List<Integer> instructions = new ArrayList<>();
+        private final List<Integer> operands = new ArrayList<>();
+        private final List<LocalDate> rangeStarts = new ArrayList<>();
+        private final List<LocalDate> rangeEnds = new ArrayList<>();
+        private final List<Set<String>> categorySets = new ArrayList<>();
+        private final List<String> prefixes = new ArrayList<>();
+        private final List<long[]> searchIds = new ArrayList<>();
+        private final List<List<String>> searchWords = new ArrayList<>();
+
+        private void compile(QueryNode node) {
+            if (node instanceof QueryNode.Constant constant) {
+                emit(CONSTANT, constant.value() ? 1 : 0);
+            } else if (node instanceof QueryNode.DateIn dateIn) {
+                rangeStarts.add(dateIn.range().getStart());
+                rangeEnds.add(dateIn.range().getEnd());
+                emit(DATE_IN, rangeStarts.size() - 1);
+            } else if (node instanceof QueryNode.CategoryIn categoryIn) {
+                categorySets.add(categoryIn.categories());
+                emit(CATEGORY_IN, categorySets.size() - 1);
+            } else if (node instanceof QueryNode.DescriptionPrefix prefix) {
+                prefixes.add(prefix.prefix());
+                emit(DESCRIPTION_PREFIX, prefixes.size() - 1);
+            } else if (node instanceof QueryNode.SearchResults search) {
+                searchIds.add(search.ids());
+                emit(SEARCH_RESULTS, searchIds.size() - 1);
+            } else if (node instanceof QueryNode.SearchWords search) {
+                searchWords.add(search.words());
+                emit(SEARCH_WORDS, searchWords.size() - 1);
+            } else if (node instanceof QueryNode.Not not) {
+                compile(not.child());
+                emit(NOT, 0);
+            } else if (node instanceof QueryNode.And and) {
+                compileJunction(and.children(), JUMP_IF_FALSE);
+            } else if (node instanceof QueryNode.Or or) {
+                compileJunction(or.children(), JUMP_IF_TRUE);
+            }
+        }
+
+        // Compile the children of an AND or OR, jumping past the rest of
+        // them as soon as the result of the whole node is known.
+        private void compileJunction(List<QueryNode> children, int jump) {
+            List<Integer> jumps = new ArrayList<>();
+            for (int i = 0; i < children.size(); i++) {
+                compile(children.get(i));
+                if (i < children.size() - 1) {
+                    jumps.add(instructions.size());
+                    emit(jump, 0);
+                }
+            }
+            for (int index : jumps) {
+                operands.set(index, instructions.size());
+            }
+        }
+
+        private void emit(int instruction, int operand) {
+            instructions.add(instruction);
+            operands.add(operand);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package io.github.tommiri.events.query;
+
+import io.github.tommiri.events.event.DateRange;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Node of the syntax tree of a query over events.
+ * <p>
+ * Commands describe which events they select as a tree of these nodes,
+ * which {@link QueryPlanner} then turns into a plan for running the query.
+ */
+public sealed interface QueryNode {
+    /**
+     * Method for combining two nodes with logical AND
+     *
+     * @param previous previous node, or null
+     * @param next     new node
+     * @return next if previous is null, otherwise the combined node
+     */
+    static QueryNode and(QueryNode previous, QueryNode next) {
+        return previous == null ? next : new And(List.of(previous, next));
+    }
+
+    /**
+     * Method for combining two nodes with logical OR
+     *
+     * @param previous previous node, or null
+     * @param next     new node
+     * @return next if previous is null, otherwise the combined node
+     */
+    static QueryNode or(QueryNode previous, QueryNode next) {
+        return previous == null ? next : new Or(List.of(previous, next));
+    }
+
+    /**
+     * Matches either all or no events.
+     *
+     * @param value whether events match
+     */
+    record Constant(boolean value) implements QueryNode {
+        @Override
+        public String toString() {
+            return value ? "all events" : "no events";
+        }
+    }
+
+    /**
+     * Matches events with dates in a range.
+     *
+     * @param range the range of dates
+     */
+    record DateIn(DateRange range) implements QueryNode {
+        @Override
+        public String toString() {
+            return "date in " + range;
+        }
+    }
+
+    /**
+     * Matches events in any of the given categories. Events
+     * with no category have the empty string as their category.
+     *
+     * @param categories the categories
+     */
+    record CategoryIn(Set<String> categories) implements QueryNode {
+        // Copy into a set that can also be looked up with null
+        public CategoryIn {
+            categories = new HashSet<>(categories);
+        }
+
+        @Override
+        public String toString() {
+            return new TreeSet<>(categories).stream()
+                    .map(category -> "\"" + category + "\"")
+                    .collect(Collectors.joining(", ", "category in {", "}"));
+        }
+    }
+
+    /**
+     * Matches events with descriptions starting with a string.
+     *
+     * @param prefix the start of the description
+     */
+    record DescriptionPrefix(String prefix) implements QueryNode {
+        @Override
+        public String toString() {
+            return "description starts with \"" + prefix + "\"";
+        }
+    }
+
+    /**
+     * Matches events found by a search of the search index.
+     *
+     * @param terms the searched words
+     * @param ids   sorted ids of the found events
+     */
+    record SearchResults(String terms, long[] ids) implements QueryNode {
+        @Override
+        public String toString() {
+            return "search \"" + terms + "\" (" + ids.length + " results)";
+        }
+    }
+
+    /**
+     * Matches events with descriptions containing all of the given words,
+     * for files that have no search index.
+     *
+     * @param terms the searched words
+     * @param words the words, as tokenized by the search index
+     */
+    record SearchWords(String terms, List<String> words) implements QueryNode {
+        @Override
+        public String toString() {
+            return "description contains words of \"" + terms + "\"";
+        }
+    }
+
+    /**
+     * Matches events matching all child nodes.
+     *
+     * @param children the child nodes
+     */
+    record And(List<QueryNode> children) implements QueryNode {
+        @Override
+        public String toString() {
+            return children.stream().map(QueryNode::toString).collect(Collectors.joining(" and ", "(", ")"));
+        }
+    }
+
+    /**
+     * Matches events matching any of the child nodes.
+     *
+     * @param children the child nodes
+     */
+    record Or(List<QueryNode> children) implements QueryNode {
+        @Override
+        public String toString() {
+            return children.stream().map(QueryNode::toString).collect(Collectors.joining(" or ", "(", ")"));
+        }
+    }
+
+    /**
+     * Matches events not matching the child node.
+     *
+     * @param child the child node
+     */
+    record Not(QueryNode child) implements QueryNode {
+        @Override
+        public String toString() {
+            return "not " + child;
+        }
+    }
+}
\ No newline at end of file
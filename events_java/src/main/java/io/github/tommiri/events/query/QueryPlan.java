@@ -0,0 +1,97 @@
+package io.github.tommiri.events.query;
+
+import io.github.tommiri.events.event.DateRange;
+import io.github.tommiri.events.event.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plan for running a query over a list of events, created by {@link QueryPlanner}.
+ * <p>
+ * Only the events between two indexes of the list are scanned, and
+ * each of them is checked with a filter kernel if the query needs
+ * more than that.
+ */
+public class QueryPlan {
+    private final QueryNode query;
+    private final List<Event> events;
+    private final int from;
+    private final int to;
+    private final DateRange seekRange;
+    private final QueryNode filterQuery;
+    private final FilterKernel filter;
+
+    // Created through QueryPlanner.plan. The filter query is
+    // null if all events in the scanned part of the list match.
+    QueryPlan(QueryNode query, List<Event> events, int from, int to, DateRange seekRange, QueryNode filterQuery) {
+        this.query = query;
+        this.events = events;
+        this.from = from;
+        this.to = to;
+        this.seekRange = seekRange;
+        this.filterQuery = filterQuery;
+        this.filter = filterQuery == null ? null : FilterKernel.compile(filterQuery);
+    }
+
+    /**
+     * Runs the plan and collects the matching events.
+     *
+     * @return list of matching events in list order
+     */
+    public List<Event> select() {
+        if (filter == null) {
+            return new ArrayList<>(events.subList(from, to));
+        }
+
+        List<Event> result = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Event event = events.get(i);
+            if (filter.matches(event)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the plan and collects the events that do not match.
+     *
+     * @return list of other events in list order
+     */
+    public List<Event> reject() {
+        // Events outside the scanned part of the list cannot match
+        List<Event> result = new ArrayList<>(events.subList(0, from));
+        if (filter != null) {
+            for (int i = from; i < to; i++) {
+                Event event = events.get(i);
+                if (!filter.matches(event)) {
+                    result.add(event);
+                }
+            }
+        }
+        result.addAll(events.subList(to, events.size()));
+        return result;
+    }
+
+    /**
+     * Describes how the plan finds the matching events.
+     *
+     * @return the description, one step per line
+     */
+    public String explain() {
+        String access;
+        if (query instanceof QueryNode.Constant constant && !constant.value()) {
+            access = "none, no events can match";
+        } else if (seekRange != null) {
+            access = "range seek on date " + seekRange + ", scanning " + (to - from) + " of " + events.size()
+                    + " events";
+        } else {
+            access = "full scan of " + events.size() + " events";
+        }
+
+        return "Query:  " + query + "\n"
+                + "Access: " + access + "\n"
+                + "Filter: " + (filter == null ? "none" : filterQuery + ", " + filter.size() + " instruction(s)");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,288 @@
+package io.github.tommiri.events.query;
+
+import io.github.tommiri.events.event.DateRange;
+import io.github.tommiri.events.event.Event;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Turns queries into plans for running them over a list of events.
+ * <p>
+ * The query is first normalized: negations are pushed down to the
+ * leaves, nested ANDs and ORs are flattened, constants are folded and
+ * date ranges combined. If the events are sorted by date, the range of
+ * dates the query can match is then looked up with a binary search, so
+ * only that part of the list is scanned. Whatever the range does not
+ * already guarantee is compiled into a {@link FilterKernel}, with the
+ * cheapest checks first.
+ */
+public class QueryPlanner {
+    // Private constructor to prevent instantiation.
+    private QueryPlanner() {
+    }
+
+    /**
+     * Creates a plan for finding the events matching a query.
+     *
+     * @param query  the query
+     * @param events events to run the query over
+     * @param sorted whether the events are sorted by date
+     * @return the plan
+     */
+    public static QueryPlan plan(QueryNode query, List<Event> events, boolean sorted) {
+        QueryNode normalized = simplify(query);
+
+        if (normalized instanceof QueryNode.Constant constant && !constant.value()) {
+            return new QueryPlan(normalized, events, 0, 0, null, null);
+        }
+
+        DateRange range = sorted ? getDateRange(normalized) : DateRange.ALL;
+        if (range.isAll()) {
+            return new QueryPlan(normalized, events, 0, events.size(), null, getFilter(normalized));
+        }
+
+        int from = range.getStart() == null ? 0 : lowerBound(events, range.getStart());
+        int to = range.getEnd() == null ? events.size() : upperBound(events, range.getEnd());
+        QueryNode residual = withoutRange(normalized);
+        return new QueryPlan(normalized, events, from, Math.max(from, to), range, getFilter(residual));
+    }
+
+    /**
+     * Simplifies a query into the form used by the plans, with
+     * negations pushed down to the leaves and the cheapest checks first.
+     *
+     * @param query the query
+     * @return the simplified query
+     */
+    public static QueryNode simplify(QueryNode query) {
+        return normalize(query, false);
+    }
+
+    // Get the checks left to make on each event, if any.
+    private static QueryNode getFilter(QueryNode node) {
+        if (node instanceof QueryNode.Constant constant && constant.value()) {
+            return null;
+        }
+        return node;
+    }
+
+    // Rewrite a node, negated if requested, so that only leaves are negated.
+    private static QueryNode normalize(QueryNode node, boolean negated) {
+        if (node instanceof QueryNode.Constant constant) {
+            return new QueryNode.Constant(constant.value() != negated);
+        }
+        if (node instanceof QueryNode.DateIn dateIn) {
+            return normalizeDateIn(dateIn.range(), negated);
+        }
+        if (node instanceof QueryNode.CategoryIn categoryIn && categoryIn.categories().isEmpty()) {
+            return new QueryNode.Constant(negated);
+        }
+        if (node instanceof QueryNode.Not not) {
+            return normalize(not.child(), !negated);
+        }
+        if (node instanceof QueryNode.And and) {
+            // not (a and b) == (not a) or (not b)
+            return combine(!negated, normalizeAll(and.children(), negated));
+        }
+        if (node instanceof QueryNode.Or or) {
+            // not (a or b) == (not a) and (not b)
+            return combine(negated, normalizeAll(or.children(), negated));
+        }
+        return negated ? new QueryNode.Not(node) : node;
+    }
+
+    private static List<QueryNode> normalizeAll(List<QueryNode> nodes, boolean negated) {
+        List<QueryNode> result = new ArrayList<>();
+        for (QueryNode node : nodes) {
+            result.add(normalize(node, negated));
+        }
+        return result;
+    }
+
+    // Dates outside a range are before or after it, so negated ranges
+    // can be expressed with ranges too.
+    private static QueryNode normalizeDateIn(DateRange range, boolean negated) {
+        if (range.isEmpty() || range.isAll()) {
+            return new QueryNode.Constant(range.isAll() != negated);
+        }
+        if (!negated) {
+            return new QueryNode.DateIn(range);
+        }
+
+        QueryNode before = range.getStart() == null ? null : new QueryNode.DateIn(DateRange.before(range.getStart()));
+        QueryNode after = range.getEnd() == null ? null : new QueryNode.DateIn(DateRange.after(range.getEnd()));
+        if (before == null || after == null) {
+            return before == null ? after : before;
+        }
+        return new QueryNode.Or(List.of(before, after));
+    }
+
+    // Combine normalized nodes with AND or OR, simplifying the result.
+    private static QueryNode combine(boolean isAnd, List<QueryNode> nodes) {
+        List<QueryNode> children = new ArrayList<>();
+        DateRange range = null;
+
+        for (QueryNode node : flatten(isAnd, nodes)) {
+            if (node instanceof QueryNode.Constant constant) {
+                // true and x == x, false and x == false, and the opposite for or
+                if (constant.value() != isAnd) {
+                    return constant;
+                }
+            } else if (isAnd && node instanceof QueryNode.DateIn dateIn) {
+                // Dates must be within every range, so only their intersection matters
+                range = range == null ? dateIn.range() : range.intersect(dateIn.range());
+            } else {
+                children.add(node);
+            }
+        }
+
+        if (range != null) {
+            if (range.isEmpty()) {
+                return new QueryNode.Constant(false);
+            }
+            children.add(new QueryNode.DateIn(range));
+        }
+        if (children.isEmpty()) {
+            return new QueryNode.Constant(isAnd);
+        }
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+
+        // Make the cheapest checks first, so the costly ones are short-circuited
+        children.sort(Comparator.comparingInt(QueryPlanner::getCost));
+        return isAnd ? new QueryNode.And(children) : new QueryNode.Or(children);
+    }
+
+    // Pull the children of nested ANDs into their parent AND, and the same for ORs.
+    private static List<QueryNode> flatten(boolean isAnd, List<QueryNode> nodes) {
+        List<QueryNode> result = new ArrayList<>();
+        for (QueryNode node : nodes) {
+            if (isAnd && node instanceof QueryNode.And and) {
+                result.addAll(and.children());
+            } else if (!isAnd && node instanceof QueryNode.Or or) {
+                result.addAll(or.children());
+            } else {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    // Estimate the relative cost of checking a node for one event.
+    private static int getCost(QueryNode node) {
+        if (node instanceof QueryNode.DateIn) {
+            return 1;
+        }
+        if (node instanceof QueryNode.CategoryIn) {
+            return 2;
+        }
+        if (node instanceof QueryNode.DescriptionPrefix) {
+            return 3;
+        }
+        if (node instanceof QueryNode.SearchResults) {
+            // Hashes the whole event and searches the results
+            return 10;
+        }
+        if (node instanceof QueryNode.SearchWords) {
+            // Splits the whole description into words
+            return 20;
+        }
+        if (node instanceof QueryNode.Not not) {
+            return getCost(not.child());
+        }
+        if (node instanceof QueryNode.And and) {
+            return and.children().stream().mapToInt(QueryPlanner::getCost).sum();
+        }
+        if (node instanceof QueryNode.Or or) {
+            return or.children().stream().mapToInt(QueryPlanner::getCost).sum();
+        }
+        return 0;
+    }
+
+    // Get the smallest range containing the dates of all events the
+    // normalized node can match.
+    private static DateRange getDateRange(QueryNode node) {
+        if (node instanceof QueryNode.DateIn dateIn) {
+            return dateIn.range();
+        }
+        if (node instanceof QueryNode.And and) {
+            DateRange range = DateRange.ALL;
+            for (QueryNode child : and.children()) {
+                range = range.intersect(getDateRange(child));
+            }
+            return range;
+        }
+        if (node instanceof QueryNode.Or or) {
+            DateRange range = null;
+            for (QueryNode child : or.children()) {
+                DateRange childRange = getDateRange(child);
+                range = range == null ? childRange : span(range, childRange);
+            }
+            return range;
+        }
+        return DateRange.ALL;
+    }
+
+    // Get the smallest range containing both ranges.
+    private static DateRange span(DateRange first, DateRange second) {
+        LocalDate start = first.getStart() == null || second.getStart() == null ? null
+                : first.getStart().isBefore(second.getStart()) ? first.getStart() : second.getStart();
+        LocalDate end = first.getEnd() == null || second.getEnd() == null ? null
+                : first.getEnd().isAfter(second.getEnd()) ? first.getEnd() : second.getEnd();
+        return new DateRange(start, end);
+    }
+
+    // Remove the date checks already guaranteed by only scanning events
+    // within the range of the node. Ranges that must hold for every
+    // matching event, ie. ones directly under the top-level AND, all
+    // contain that range.
+    private static QueryNode withoutRange(QueryNode node) {
+        if (node instanceof QueryNode.DateIn) {
+            return new QueryNode.Constant(true);
+        }
+        if (node instanceof QueryNode.And and) {
+            List<QueryNode> children = new ArrayList<>();
+            for (QueryNode child : and.children()) {
+                if (!(child instanceof QueryNode.DateIn)) {
+                    children.add(child);
+                }
+            }
+            return combine(true, children);
+        }
+        return node;
+    }
+
+    // Find the index of the first event on or after the given date.
+    private static int lowerBound(List<Event> events, LocalDate date) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (events.get(middle).compareTo(date) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Find the index of the first event after the given date.
+    private static int upperBound(List<Event> events, LocalDate date) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (events.get(middle).compareTo(date) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
\ No newline at end of file
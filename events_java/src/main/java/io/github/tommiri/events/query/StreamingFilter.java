@@ -0,0 +1,215 @@
+package io.github.tommiri.events.query;
+
+import io.github.tommiri.events.event.Event;
+import io.github.tommiri.events.event.EventReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Query run over events read from a stream, such as standard input.
+ * <p>
+ * A reader thread parses the input into events and hands them over in
+ * small batches through a bounded queue, while the calling thread checks
+ * them and passes each event on as soon as it is checked.
+ * Reading therefore overlaps with filtering and writing the output, and
+ * only a fixed number of records is held in memory however long the
+ * input is.
+ */
+public class StreamingFilter {
+    // Events per batch, and batches waiting to be filtered at most
+    private static final int BATCH_SIZE = 256;
+    private static final int QUEUE_CAPACITY = 16;
+    // Marks the end of the input in the queue
+    private static final List<Event> END = new ArrayList<>();
+
+    private final QueryNode query;
+    private long readCount = 0;
+    private long matchCount = 0;
+
+    /**
+     * Receives the events of the input.
+     */
+    public interface Sink {
+        /**
+         * Method for receiving an event, in input order
+         *
+         * @param event the event
+         * @throws IOException if handling the event fails
+         */
+        void accept(Event event) throws IOException;
+
+        /**
+         * Method for writing out any buffered output. Called whenever
+         * the filter has to wait for more input.
+         *
+         * @throws IOException if writing fails
+         */
+        default void flush() throws IOException {
+        }
+    }
+
+    /**
+     * Constructs a filter for the given query.
+     *
+     * @param query the query
+     */
+    public StreamingFilter(QueryNode query) {
+        this.query = QueryPlanner.simplify(query);
+    }
+
+    /**
+     * Reads events from the input and passes them to the sinks.
+     *
+     * @param input    input in the CSV format of the events file
+     * @param matching receives events matching the query, or null to ignore them
+     * @param other    receives events not matching the query, or null to ignore them
+     * @throws IOException if reading the input fails or a sink fails
+     */
+    public void run(Reader input, Sink matching, Sink other) throws IOException {
+        readCount = 0;
+        matchCount = 0;
+        FilterKernel filter = query instanceof QueryNode.Constant ? null : FilterKernel.compile(query);
+        boolean matchAll = query instanceof QueryNode.Constant constant && constant.value();
+
+        // The header is read on this thread, so that a missing header is reported
+        // directly. After that, the reader is only ever used by the reader thread.
+        EventReader reader = new EventReader(input);
+        BlockingQueue<List<Event>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        EventProducer producer = new EventProducer(reader, queue);
+        Thread thread = new Thread(producer, "input-reader");
+        thread.setDaemon(true);
+        thread.start();
+
+        try {
+            while (true) {
+                List<Event> batch = queue.poll();
+                if (batch == null) {
+                    // Write out what has been filtered so far while waiting for input
+                    flush(matching);
+                    flush(other);
+                    batch = queue.take();
+                }
+                if (batch == END) {
+                    break;
+                }
+
+                for (Event event : batch) {
+                    readCount++;
+
+                    if (matchAll || filter != null && filter.matches(event)) {
+                        matchCount++;
+                        if (matching != null) {
+                            matching.accept(event);
+                        }
+                    } else if (other != null) {
+                        other.accept(event);
+                    }
+                }
+            }
+
+            Throwable failure = producer.failure;
+            if (failure instanceof IOException ioe) {
+                throw ioe;
+            } else if (failure != null) {
+                throw new IOException("Failed to read input: " + failure, failure);
+            }
+            flush(matching);
+            flush(other);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading input", e);
+        } finally {
+            // Stop the reader if filtering failed before the end of input
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Gets the number of events read by the last run.
+     *
+     * @return the number of events
+     */
+    public long getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * Gets the number of events matching the query in the last run.
+     *
+     * @return the number of matching events
+     */
+    public long getMatchCount() {
+        return matchCount;
+    }
+
+    /**
+     * Describes how the query is run.
+     *
+     * @param inputName name of the input
+     * @return the description, one step per line
+     */
+    public String explain(String inputName) {
+        FilterKernel filter = query instanceof QueryNode.Constant ? null : FilterKernel.compile(query);
+
+        return "Query:  " + query + "\n"
+                + "Access: streaming scan of " + inputName + "\n"
+                + "Filter: " + (filter == null ? "none" : query + ", " + filter.size() + " instruction(s)");
+    }
+
+    private static void flush(Sink sink) throws IOException {
+        if (sink != null) {
+            sink.flush();
+        }
+    }
+
+    // Reads events into the queue until the end of input. Events are parsed
+    // on this thread, so errors report the position of the failing record.
+    // Whatever ends the reading, the end is marked in the queue, so that the
+    // filtering thread never waits for input that will not come.
+    private static class EventProducer implements Runnable {
+        private final EventReader reader;
+        private final BlockingQueue<List<Event>> queue;
+        private volatile Throwable failure;
+
+        EventProducer(EventReader reader, BlockingQueue<List<Event>> queue) {
+            this.reader = reader;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Event> batch = new ArrayList<>(BATCH_SIZE);
+                Event event;
+                while ((event = reader.readEvent()) != null) {
+                    batch.add(event);
+                    if (batch.size() == BATCH_SIZE) {
+                        queue.put(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    queue.put(batch);
+                }
+            } catch (InterruptedException e) {
+                // Filtering has stopped, so there is no one to read for
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                // Includes runtime exceptions and errors, which are
+                // reported to the filtering thread instead of lost
+                failure = t;
+            } finally {
+                try {
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    // Filtering has stopped
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
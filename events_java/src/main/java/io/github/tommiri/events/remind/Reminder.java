@@ -0,0 +1,40 @@
+package io.github.tommiri.events.remind;
+
+import io.github.tommiri.events.event.Event;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * Reminder of an event, due some time before the event starts.
+ *
+ * @param event    the event
+ * @param leadTime how long before the event the reminder is due
+ * @param dueTime  the time the reminder is due
+ */
+public record Reminder(Event event, Duration leadTime, ZonedDateTime dueTime) {
+    /**
+     * Describes how long before the event the reminder is due,
+     * in the largest unit the lead time is a whole number of.
+     *
+     * @return the description, such as "in 15 minute(s)"
+     */
+    public String getLeadTimeString() {
+        long seconds = leadTime.getSeconds();
+        if (seconds == 0) {
+            return "now";
+        } else if (seconds % 86400 == 0) {
+            return "in " + seconds / 86400 + " day(s)";
+        } else if (seconds % 3600 == 0) {
+            return "in " + seconds / 3600 + " hour(s)";
+        } else if (seconds % 60 == 0) {
+            return "in " + seconds / 60 + " minute(s)";
+        }
+        return "in " + seconds + " second(s)";
+    }
+
+    @Override
+    public String toString() {
+        return event + " -- " + getLeadTimeString();
+    }
+}
\ No newline at end of file
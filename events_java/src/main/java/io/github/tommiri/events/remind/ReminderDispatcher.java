@@ -0,0 +1,90 @@
+package io.github.tommiri.events.remind;
+
+import io.github.tommiri.events.event.Event;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Delivers due reminders by printing them and optionally running a
+ * shell command for each of them.
+ * <p>
+ * Messages are printed in order on the calling thread, while commands run
+ * on a fixed number of threads. Commands waiting for a thread are queued,
+ * and once the queue is full the calling thread runs commands itself,
+ * which holds up further reminders until the commands catch up. Many
+ * reminders due at once, such as for all events on a date, therefore
+ * never start more than a fixed number of processes at a time.
+ */
+public class ReminderDispatcher implements Consumer<Reminder> {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // Commands waiting for a thread per thread, at most
+    private static final int QUEUED_PER_JOB = 64;
+
+    private final PrintStream out;
+    private final String command;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a dispatcher.
+     *
+     * @param out     stream to print reminders to
+     * @param command shell command to run for each reminder, or null
+     * @param jobs    number of commands to run at once at most
+     */
+    public ReminderDispatcher(PrintStream out, String command, int jobs) {
+        this.out = out;
+        this.command = command;
+        this.executor = command == null ? null : new ThreadPoolExecutor(jobs, jobs, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobs * QUEUED_PER_JOB), task -> {
+            // Commands still running do not keep the program alive
+            Thread thread = new Thread(task, "reminder-command");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Method for delivering a due reminder
+     *
+     * @param reminder the reminder
+     */
+    @Override
+    public void accept(Reminder reminder) {
+        out.println("[" + TIME_FORMAT.format(reminder.dueTime()) + "] Reminder: " + reminder);
+
+        if (executor != null) {
+            executor.execute(() -> runCommand(reminder));
+        }
+    }
+
+    // Run the command with the details of the event in environment variables.
+    private void runCommand(Reminder reminder) {
+        Event event = reminder.event();
+        ProcessBuilder builder = new ProcessBuilder("sh", "-c", command).inheritIO();
+        Map<String, String> environment = builder.environment();
+        environment.put("EVENT_DATE", event.getDate().toString());
+        environment.put("EVENT_CATEGORY", Objects.toString(event.getCategory(), ""));
+        environment.put("EVENT_DESCRIPTION", event.getDescription());
+        environment.put("REMINDER", reminder.toString());
+
+        try {
+            int exitCode = builder.start().waitFor();
+            if (exitCode != 0) {
+                System.err.println("ERROR: Reminder command exited with " + exitCode + " for " + event);
+            }
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Failed to run reminder command: " + ioe.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,291 @@
+package io.github.tommiri.events.remind;
+
+import io.github.tommiri.events.event.Event;
+import io.github.tommiri.events.event.EventReader;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Schedules reminders for the upcoming events of an events file and
+ * delivers them when they are due, for as long as it runs.
+ * <p>
+ * Reminders are kept in a {@link TimingWheel} with a tick of one second.
+ * Between reminders the scheduler waits on a watch of the directory of the
+ * events file, so it uses no CPU until either the next reminder is due or
+ * the file changes. Changed files are compared with the scheduled events
+ * by counting each distinct event, and only the reminders of added or
+ * deleted events are scheduled or cancelled.
+ */
+public class ReminderScheduler {
+    // Longest time to wait at once, so that changes to the
+    // system clock are noticed within a minute
+    private static final long MAX_WAIT_MILLIS = 60_000;
+    // Time to wait for further changes before reloading a changed file
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path eventsPath;
+    private final List<Duration> leadTimes;
+    private final LocalTime startTime;
+    private final Consumer<Reminder> dispatcher;
+    private final PrintStream status;
+    private final Clock clock;
+    private final TimingWheel<Scheduled> wheel;
+    // Occurrences of each distinct event with reminders still to come
+    private final Map<EventKey, List<Occurrence>> occurrences = new HashMap<>();
+
+    /**
+     * Constructs a scheduler.
+     *
+     * @param eventsPath the path to the events file
+     * @param leadTimes  how long before events to remind of them
+     * @param startTime  the time of day events are considered to start at
+     * @param dispatcher receives reminders when they are due
+     * @param status     stream to print the number of scheduled reminders to
+     */
+    public ReminderScheduler(Path eventsPath, List<Duration> leadTimes, LocalTime startTime,
+                             Consumer<Reminder> dispatcher, PrintStream status) {
+        this(eventsPath, leadTimes, startTime, dispatcher, status, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a scheduler that tells the time with the given clock.
+     *
+     * @param eventsPath the path to the events file
+     * @param leadTimes  how long before events to remind of them
+     * @param startTime  the time of day events are considered to start at
+     * @param dispatcher receives reminders when they are due
+     * @param status     stream to print the number of scheduled reminders to
+     * @param clock      clock giving the current time and time zone
+     */
+    public ReminderScheduler(Path eventsPath, List<Duration> leadTimes, LocalTime startTime,
+                             Consumer<Reminder> dispatcher, PrintStream status, Clock clock) {
+        this.eventsPath = eventsPath;
+        this.leadTimes = new ArrayList<>(leadTimes);
+        this.startTime = startTime;
+        this.dispatcher = dispatcher;
+        this.status = status;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(currentTick());
+        // The earliest reminder of an event is scheduled first
+        this.leadTimes.sort(Collections.reverseOrder());
+    }
+
+    /**
+     * Schedules reminders for the events in the file and delivers them
+     * as they become due, until the thread is interrupted.
+     *
+     * @throws IOException          if the events file cannot be read or watched
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void run() throws IOException, InterruptedException {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            // Watch the directory, as the file may be replaced rather than written to
+            Path directory = eventsPath.toAbsolutePath().getParent();
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            reload();
+
+            while (true) {
+                WatchKey key = watcher.poll(getWaitMillis(), TimeUnit.MILLISECONDS);
+                if (key != null && isEventsFileChanged(key)) {
+                    // Let a file still being written settle before reading it
+                    while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+                    try {
+                        reload();
+                    } catch (IOException ioe) {
+                        // Keep the current reminders until the file can be read again
+                        System.err.println("ERROR: Failed to reload events: " + ioe.getMessage());
+                    }
+                }
+                wheel.advance(now(), this::expire);
+            }
+        }
+    }
+
+    /**
+     * Reads the events file and schedules the reminders of added events
+     * and cancels the reminders of deleted events.
+     *
+     * @throws IOException if reading the events file fails
+     */
+    public void reload() throws IOException {
+        // Deliver due reminders first, so that only events
+        // with reminders still to come are compared
+        long now = now();
+        wheel.advance(now, this::expire);
+
+        Map<EventKey, Integer> counts = new HashMap<>();
+        try (EventReader reader = EventReader.open(eventsPath)) {
+            reader.setReportInvalidDates(false);
+            Event event;
+            while ((event = reader.readEvent()) != null) {
+                if (getDueTick(event, leadTimes.get(leadTimes.size() - 1)) > now) {
+                    counts.merge(EventKey.of(event), 1, Integer::sum);
+                }
+            }
+        }
+
+        int cancelled = 0;
+        Iterator<Map.Entry<EventKey, List<Occurrence>>> iterator = occurrences.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<EventKey, List<Occurrence>> entry = iterator.next();
+            List<Occurrence> list = entry.getValue();
+            int count = counts.getOrDefault(entry.getKey(), 0);
+            while (list.size() > count) {
+                list.remove(list.size() - 1).cancel();
+                cancelled++;
+            }
+            if (list.isEmpty()) {
+                iterator.remove();
+            }
+        }
+
+        int added = 0;
+        for (Map.Entry<EventKey, Integer> entry : counts.entrySet()) {
+            List<Occurrence> list = occurrences.computeIfAbsent(entry.getKey(), key -> new ArrayList<>(1));
+            while (list.size() < entry.getValue()) {
+                list.add(schedule(entry.getKey(), now));
+                added++;
+            }
+        }
+
+        status.println("Loaded events: " + added + " added, " + cancelled + " removed, "
+                + wheel.size() + " reminder(s) scheduled");
+    }
+
+    /**
+     * Gets the number of reminders still to come.
+     *
+     * @return the number of reminders
+     */
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    // Schedule the reminders still to come for an occurrence of an event.
+    private Occurrence schedule(EventKey key, long now) {
+        Occurrence occurrence = new Occurrence(key);
+        Event event = key.toEvent();
+        for (Duration leadTime : leadTimes) {
+            long dueTick = getDueTick(event, leadTime);
+            if (dueTick > now) {
+                Reminder reminder = new Reminder(event, leadTime, getDueTime(event, leadTime));
+                occurrence.timers.add(wheel.schedule(dueTick, new Scheduled(reminder, occurrence)));
+            }
+        }
+        return occurrence;
+    }
+
+    // Deliver a due reminder, forgetting its event once it has no reminders left.
+    private void expire(Scheduled scheduled) {
+        Occurrence occurrence = scheduled.occurrence();
+        occurrence.timers.removeIf(timer -> !timer.isScheduled());
+        if (occurrence.timers.isEmpty()) {
+            List<Occurrence> list = occurrences.get(occurrence.key);
+            if (list != null) {
+                list.remove(occurrence);
+                if (list.isEmpty()) {
+                    occurrences.remove(occurrence.key);
+                }
+            }
+        }
+        dispatcher.accept(scheduled.reminder());
+    }
+
+    // Check if any of the changes behind a watch key are to the events file.
+    private boolean isEventsFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || eventsPath.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    // Get the time to wait until the wheel next has to be advanced.
+    private long getWaitMillis() {
+        long nextTick = wheel.nextTick();
+        if (nextTick == Long.MAX_VALUE) {
+            return MAX_WAIT_MILLIS;
+        }
+        long millis = nextTick * 1000 - clock.millis();
+        return Math.max(0, Math.min(millis, MAX_WAIT_MILLIS));
+    }
+
+    private ZonedDateTime getDueTime(Event event, Duration leadTime) {
+        return event.getDate().atTime(startTime).atZone(clock.getZone()).minus(leadTime);
+    }
+
+    private long getDueTick(Event event, Duration leadTime) {
+        return getDueTime(event, leadTime).toEpochSecond();
+    }
+
+    // Get the current tick. If the system clock has been set back, the wheel
+    // stays at the latest tick it has reached until the clock catches up, as
+    // reminders up to it have already been delivered and it cannot go back.
+    private long now() {
+        return Math.max(currentTick(), wheel.getCurrentTick());
+    }
+
+    private long currentTick() {
+        return clock.instant().getEpochSecond();
+    }
+
+    // Identity of events, for counting equal events in the file
+    private record EventKey(LocalDate date, String category, String description) {
+        static EventKey of(Event event) {
+            return new EventKey(event.getDate(), event.getCategory(), event.getDescription());
+        }
+
+        Event toEvent() {
+            return new Event(date, category, description);
+        }
+    }
+
+    // Reminder as scheduled on the wheel, along with the event occurrence it is for
+    private record Scheduled(Reminder reminder, Occurrence occurrence) {
+    }
+
+    // Single occurrence of an event in the file, with its scheduled reminders
+    private final class Occurrence {
+        private final EventKey key;
+        private final List<TimingWheel.Timer<Scheduled>> timers = new ArrayList<>(leadTimes.size());
+
+        Occurrence(EventKey key) {
+            this.key = key;
+        }
+
+        void cancel() {
+            for (TimingWheel.Timer<Scheduled> timer : timers) {
+                wheel.cancel(timer);
+            }
+            timers.clear();
+        }
+    }
+}
\ No newline at end of file
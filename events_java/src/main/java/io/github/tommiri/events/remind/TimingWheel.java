@@ -0,0 +1,248 @@
+package io.github.tommiri.events.remind;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for timers with deadlines in whole ticks.
+ * <p>
+ * Each level has 64 slots, and a timer is kept at the level of the highest
+ * base-64 digit in which its deadline differs from the current tick, in the
+ * slot given by that digit. Slots are doubly linked lists, so scheduling and
+ * cancelling a timer take constant time however many timers there are.
+ * When the current tick reaches the start of an occupied slot at a higher
+ * level, its timers are moved down to the level where they now differ.
+ * <p>
+ * The wheel is not thread safe.
+ *
+ * @param <T> type of the values of the timers
+ */
+public class TimingWheel<T> {
+    // Bits of the deadline per level, and the number of levels
+    // needed to hold any deadline up to 2^60 ticks
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 10;
+    private static final long MAX_TICK = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    // Sentinel heads of the slot lists, and a bit per occupied slot for each level
+    private final Timer<T>[][] slots;
+    private final long[] occupied = new long[LEVELS];
+    private long currentTick;
+    private int size = 0;
+
+    /**
+     * Timer scheduled on a wheel.
+     *
+     * @param <T> type of the value of the timer
+     */
+    public static final class Timer<T> {
+        private final long deadline;
+        private final T value;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private int level;
+
+        private Timer(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+
+        /**
+         * Gets the tick the timer expires at.
+         *
+         * @return the tick
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Gets the value of the timer.
+         *
+         * @return the value
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * Checks if the timer is still waiting to expire.
+         *
+         * @return true if the timer has neither expired nor been cancelled
+         */
+        public boolean isScheduled() {
+            return next != null;
+        }
+    }
+
+    /**
+     * Constructs an empty wheel.
+     *
+     * @param currentTick the current tick
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long currentTick) {
+        if (currentTick < 0 || currentTick > MAX_TICK) {
+            throw new IllegalArgumentException("Tick out of range: " + currentTick);
+        }
+        this.currentTick = currentTick;
+        this.slots = new Timer[LEVELS][SLOTS];
+        for (Timer<T>[] level : slots) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer<T> head = new Timer<>(-1, null);
+                head.prev = head;
+                head.next = head;
+                level[slot] = head;
+            }
+        }
+    }
+
+    /**
+     * Schedules a timer.
+     *
+     * @param deadline the tick to expire at, after the current tick
+     * @param value    the value of the timer
+     * @return the timer, for cancelling it
+     * @throws IllegalArgumentException if the deadline is not after the current tick
+     */
+    public Timer<T> schedule(long deadline, T value) {
+        if (deadline <= currentTick || deadline > MAX_TICK) {
+            throw new IllegalArgumentException("Deadline out of range: " + deadline);
+        }
+        Timer<T> timer = new Timer<>(deadline, value);
+        insert(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a timer.
+     *
+     * @param timer the timer
+     * @return true if the timer was cancelled, false if it had already expired or been cancelled
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (!timer.isScheduled()) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances the current tick, expiring every timer with a deadline up to
+     * and including the new tick in order of their deadlines.
+     *
+     * @param tick    the new current tick
+     * @param expired receives the values of the expired timers
+     */
+    public void advance(long tick, Consumer<T> expired) {
+        long target = Math.min(tick, MAX_TICK);
+        while (currentTick < target) {
+            // Skip straight to the next tick where a slot has to be handled
+            currentTick = Math.min(nextTick(), target);
+
+            // Move timers down from every level whose slot starts at this tick
+            for (int level = LEVELS - 1; level > 0; level--) {
+                long lowerBits = currentTick & ((1L << (SLOT_BITS * level)) - 1);
+                if (lowerBits == 0) {
+                    int slot = digit(currentTick, level);
+                    if ((occupied[level] & (1L << slot)) != 0) {
+                        cascade(level, slot);
+                    }
+                }
+            }
+
+            // Expire the timers of the current tick
+            int slot = digit(currentTick, 0);
+            Timer<T> head = slots[0][slot];
+            while (head.next != head) {
+                Timer<T> timer = head.next;
+                unlink(timer);
+                size--;
+                expired.accept(timer.value);
+            }
+        }
+    }
+
+    /**
+     * Gets the earliest tick at which a timer may expire. No timer expires
+     * before it, but timers far in the future are only placed precisely as
+     * their deadline gets closer, so none may expire at it either.
+     *
+     * @return the tick, or {@link Long#MAX_VALUE} if there are no timers
+     */
+    public long nextTick() {
+        // Occupied slots are always ahead of the current tick at their level,
+        // and lower levels always come before higher ones
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] != 0) {
+                int shift = SLOT_BITS * (level + 1);
+                long prefix = (currentTick >>> shift) << shift;
+                return prefix | ((long) Long.numberOfTrailingZeros(occupied[level]) << (SLOT_BITS * level));
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the current tick.
+     *
+     * @return the tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets the number of scheduled timers.
+     *
+     * @return the number of timers
+     */
+    public int size() {
+        return size;
+    }
+
+    // Reinsert the timers of a slot relative to the current tick.
+    private void cascade(int level, int slot) {
+        Timer<T> head = slots[level][slot];
+        while (head.next != head) {
+            Timer<T> timer = head.next;
+            unlink(timer);
+            insert(timer);
+        }
+    }
+
+    // Link a timer into the slot for its deadline.
+    private void insert(Timer<T> timer) {
+        // The level is that of the highest digit differing from the current tick
+        int level = (63 - Long.numberOfLeadingZeros(timer.deadline ^ currentTick)) / SLOT_BITS;
+        int slot = digit(timer.deadline, level);
+        Timer<T> head = slots[level][slot];
+
+        timer.level = level;
+        timer.prev = head.prev;
+        timer.next = head;
+        head.prev.next = timer;
+        head.prev = timer;
+        occupied[level] |= 1L << slot;
+    }
+
+    // Unlink a timer from its slot, clearing the slot bit if it becomes empty.
+    private void unlink(Timer<T> timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        int slot = digit(timer.deadline, timer.level);
+        Timer<T> head = slots[timer.level][slot];
+        if (head.next == head) {
+            occupied[timer.level] &= ~(1L << slot);
+        }
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    private static int digit(long tick, int level) {
+        return (int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1);
+    }
+}
\ No newline at end of file
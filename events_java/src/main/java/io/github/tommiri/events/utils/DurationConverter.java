@@ -0,0 +1,47 @@
+package io.github.tommiri.events.utils;
+
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.converters.BaseConverter;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converter class for converting string such as "15m" or "2d" to Duration
+ */
+public class DurationConverter extends BaseConverter<Duration> {
+    // Whole number followed by a unit of seconds, minutes, hours, days or weeks
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d{1,9})([smhdw])");
+
+    /**
+     * Public constructor that invokes BaseConverter constructor
+     *
+     * @param optionName desired option
+     */
+    public DurationConverter(String optionName) {
+        super(optionName);
+    }
+
+    /**
+     * Method for converting string to Duration
+     *
+     * @param value string to parse
+     * @return the Duration parsed from the string
+     */
+    public Duration convert(String value) {
+        Matcher matcher = DURATION_PATTERN.matcher(value);
+        if (!matcher.matches()) {
+            throw new ParameterException(this.getErrorString(value, "a duration (such as 30s, 15m, 2h, 1d or 1w)"));
+        }
+
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "s" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            case "d" -> Duration.ofDays(amount);
+            default -> Duration.ofDays(amount * 7);
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package io.github.tommiri.events.utils;
+
+/**
+ * Utility class for hashing
+ */
+public class HashUtils {
+    // FNV-1a 64-bit offset basis and prime
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Method for computing the 64-bit FNV-1a hash of a string
+     *
+     * @param value string to hash
+     * @return the hash
+     */
+    public static long fnv1a64(CharSequence value) {
+        return fnv1a64(FNV_OFFSET_BASIS, value);
+    }
+
+    /**
+     * Method for continuing a 64-bit FNV-1a hash with another string,
+     * so that several strings can be hashed as one
+     *
+     * @param hash  hash of the preceding strings
+     * @param value string to hash
+     * @return the combined hash
+     */
+    public static long fnv1a64(long hash, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Method for mixing the bits of a hash so that similar
+     * inputs produce very different values
+     *
+     * @param hash hash to mix
+     * @return the mixed hash
+     */
+    public static long mix(long hash) {
+        // Finalizer of the MurmurHash3 64-bit variant
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package io.github.tommiri.events.utils;
+
+import com.beust.jcommander.ParameterException;
+import com.beust.jcommander.converters.BaseConverter;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converter class for converting string to LocalTime
+ */
+public class LocalTimeConverter extends BaseConverter<LocalTime> {
+    /**
+     * Public constructor that invokes BaseConverter constructor
+     *
+     * @param optionName desired option
+     */
+    public LocalTimeConverter(String optionName) {
+        super(optionName);
+    }
+
+    /**
+     * Method for converting string to LocalTime
+     *
+     * @param value string to parse
+     * @return the LocalTime parsed from the string
+     */
+    public LocalTime convert(String value) {
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException var3) {
+            throw new ParameterException(this.getErrorString(value, "an ISO-8601 formatted time (HH:mm)"));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+package io.github.tommiri.events.utils;
+
+import java.util.Arrays;
+
+/**
+ * Set of long values stored in a single open-addressing table.
+ * <p>
+ * Values are stored unboxed with linear probing, taking at most 22 bytes
+ * per value instead of the ~50 of a HashSet of Longs, so that tens of
+ * millions of hashes fit in a modest heap.
+ */
+public class LongHashSet {
+    // Marks an empty slot, so zero itself is tracked separately
+    private static final long EMPTY = 0L;
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private long[] table;
+    private int size = 0;
+    private boolean containsZero = false;
+
+    /**
+     * Constructs an empty set.
+     */
+    public LongHashSet() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty set with room for the given number
+     * of values before it has to grow.
+     *
+     * @param expectedSize expected number of values
+     */
+    public LongHashSet(int expectedSize) {
+        // Keep the table at most three quarters full
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity * 3L < expectedSize * 4L && capacity < 1 << 30) {
+            capacity <<= 1;
+        }
+        this.table = new long[capacity];
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @param value value to add
+     * @return true if the value was not in the set, otherwise false
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int slot = (int) HashUtils.mix(value) & mask;
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = value;
+        size++;
+        if (size * 4L > table.length * 3L) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Method for checking if a value is in the set
+     *
+     * @param value value to look for
+     * @return true if the value is in the set, otherwise false
+     */
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+
+        int mask = table.length - 1;
+        int slot = (int) HashUtils.mix(value) & mask;
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of values in the set.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all values from the set. A table grown far beyond
+     * the minimum is dropped, so that clearing a set often stays
+     * cheap after it has once held many values.
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        if (table.length > MINIMUM_CAPACITY * 64) {
+            table = new long[MINIMUM_CAPACITY];
+        } else {
+            Arrays.fill(table, EMPTY);
+        }
+        size = 0;
+        containsZero = false;
+    }
+
+    // Double the table and reinsert all values
+    private void grow() {
+        if (table.length == 1 << 30) {
+            throw new IllegalStateException("Set is too large");
+        }
+
+        long[] previous = table;
+        table = new long[previous.length * 2];
+        int mask = table.length - 1;
+        for (long value : previous) {
+            if (value != EMPTY) {
+                int slot = (int) HashUtils.mix(value) & mask;
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
\ No newline at end of file
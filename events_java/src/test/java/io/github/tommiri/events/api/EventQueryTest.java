@@ -0,0 +1,52 @@
+package io.github.tommiri.events.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventQueryTest {
+    @TempDir
+    Path directory;
+
+    private EventRepository repository;
+
+    @BeforeEach
+    void createRepository() throws IOException {
+        Path eventsPath = directory.resolve("events.csv");
+        Files.writeString(eventsPath, """
+                "date","category","description"
+                "2020-01-01","work","Meeting"
+                "2020-01-02","home","Party"
+                "2020-01-03","","Walk"
+                "2020-01-04","work","Review"
+                """);
+        repository = new EventRepository(eventsPath);
+    }
+
+    @Test
+    void countAppliesAllFilters() {
+        assertEquals(4, repository.query().count());
+        assertEquals(2, repository.query().categories("work").count());
+        assertEquals(1, repository.query().categories("work").after(LocalDate.of(2020, 1, 1)).count());
+        assertEquals(2, repository.query().categories("work").excludeCategories().count());
+        assertEquals(1, repository.query().noCategory().count());
+        assertEquals(1, repository.query().descriptionStartsWith("Pa").count());
+    }
+
+    @Test
+    void excludeCategoriesRequiresCategories() {
+        EventQuery query = repository.query().excludeCategories();
+
+        assertThrows(IllegalStateException.class, query::count);
+        assertThrows(IllegalStateException.class, query::delete);
+        assertEquals(4, repository.query().count());
+    }
+}
\ No newline at end of file
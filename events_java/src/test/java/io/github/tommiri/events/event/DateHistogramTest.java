@@ -0,0 +1,57 @@
+package io.github.tommiri.events.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DateHistogramTest {
+    private static final List<Event> EVENTS = List.of(
+            new Event(LocalDate.of(2020, 1, 1), "work", "a"),
+            new Event(LocalDate.of(2020, 1, 1), "work", "b"),
+            new Event(LocalDate.of(2020, 1, 3), "home", "c"),
+            new Event(LocalDate.of(1900, 1, 1), null, "d"),
+            new Event(LocalDate.of(2999, 12, 31), "work", "e"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void countCountsEventsInRange() {
+        DateHistogram histogram = new DateHistogram(EVENTS);
+
+        assertEquals(5, histogram.count(DateRange.ALL));
+        assertEquals(3, histogram.count(new DateRange(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 3))));
+        assertEquals(0, histogram.count(DateRange.on(LocalDate.of(2020, 1, 2))));
+        assertEquals(2, histogram.count(DateRange.on(LocalDate.of(2020, 1, 1)), "work"));
+        assertEquals(1, histogram.count(DateRange.ALL, ""));
+        assertEquals(0, histogram.count(DateRange.ALL, "missing"));
+        assertEquals(List.of("", "home", "work"), histogram.getCategories());
+    }
+
+    @Test
+    void openReadsSavedHistogramUntilFileChanges() throws IOException {
+        Path eventsPath = directory.resolve("events.csv");
+        Files.writeString(eventsPath, "\"date\",\"category\",\"description\"\n");
+        assertNull(DateHistogram.open(eventsPath));
+
+        new DateHistogram(EVENTS).save(eventsPath);
+        DateHistogram histogram = DateHistogram.open(eventsPath);
+        assertNotNull(histogram);
+        assertEquals(5, histogram.count(DateRange.ALL));
+        assertEquals(1, histogram.count(DateRange.after(LocalDate.of(2020, 1, 1)), "work"));
+        assertEquals(List.of("", "home", "work"), histogram.getCategories());
+
+        Files.writeString(eventsPath, "\"2020-01-01\",\"work\",\"f\"\n", StandardOpenOption.APPEND);
+        assertNull(DateHistogram.open(eventsPath));
+    }
+}
\ No newline at end of file
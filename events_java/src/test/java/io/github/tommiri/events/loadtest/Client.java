@@ -0,0 +1,14 @@
+package io.github.tommiri.events.loadtest;
+
+/**
+ * Runs the commands of the load test.
+ */
+public interface Client {
+    /**
+     * Runs a command and waits for it to finish.
+     *
+     * @param args command line arguments of the command
+     * @throws Exception if the command fails
+     */
+    void execute(String[] args) throws Exception;
+}
\ No newline at end of file
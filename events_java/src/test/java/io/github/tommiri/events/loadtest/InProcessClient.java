@@ -0,0 +1,50 @@
+package io.github.tommiri.events.loadtest;
+
+import io.github.tommiri.events.args.ArgsHandler;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+/**
+ * Client that runs commands in this process through {@link ArgsHandler},
+ * the same way as the command line program.
+ * <p>
+ * The command handlers print their results and keep their state in
+ * singletons, so commands are run one at a time with the output
+ * discarded. Latencies therefore include waiting for the commands of
+ * other clients to finish. Commands that fail exit the process, which
+ * ends the test.
+ */
+public class InProcessClient implements Client {
+    // Commands of all clients are run one at a time
+    private static final Object LOCK = new Object();
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private final Path home;
+
+    /**
+     * Constructs a client.
+     *
+     * @param home home directory holding the events file
+     */
+    public InProcessClient(Path home) {
+        this.home = home;
+    }
+
+    @Override
+    public void execute(String[] args) {
+        synchronized (LOCK) {
+            PrintStream out = System.out;
+            String userHome = System.getProperty("user.home");
+            System.setOut(DISCARD);
+            System.setProperty("user.home", home.toString());
+            try {
+                ArgsHandler.getInstance().handleArgs(args);
+            } finally {
+                System.setOut(out);
+                System.setProperty("user.home", userHome);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+package io.github.tommiri.events.loadtest;
+
+/**
+ * Histogram of latencies with log-linear buckets, in the style of HdrHistogram.
+ * <p>
+ * Values are grouped by their power of two, and each power of two is split
+ * into equally wide sub-buckets. Every recorded value is therefore kept
+ * with a fixed relative precision of under 1%, from nanoseconds up to
+ * hours, in a few kilobytes of counters. Not thread-safe, so each thread
+ * should record into its own histogram and merge them afterwards.
+ */
+public class LatencyHistogram {
+    // Values below 2^SUB_BUCKET_BITS are counted exactly
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_SHIFT = 64 - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[SUB_BUCKET_COUNT + MAX_SHIFT * HALF_SUB_BUCKET_COUNT];
+    private long totalCount = 0;
+    private long totalValue = 0;
+    private long maxValue = 0;
+
+    /**
+     * Records a value.
+     *
+     * @param value the value, such as a latency in nanoseconds
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Cannot record negative value " + value);
+        }
+        counts[getIndex(value)]++;
+        totalCount++;
+        totalValue += value;
+        maxValue = Math.max(maxValue, value);
+    }
+
+    /**
+     * Adds the values recorded in another histogram to this one.
+     *
+     * @param other the other histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return the largest value, or 0 if none were recorded
+     */
+    public long getMax() {
+        return maxValue;
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return the mean, or 0 if none were recorded
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * Gets the value at a percentile, which at least the given
+     * percentage of recorded values are less than or equal to.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the largest value in the bucket of the percentile,
+     * capped at the largest recorded value, or 0 if none were recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(getHighestValue(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    // Find the bucket of a value. Values sharing a power of two are split
+    // into half as many sub-buckets as there are exact values below the first.
+    private static int getIndex(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        int subBucket = (int) (value >>> shift);
+        if (shift == 0) {
+            return subBucket;
+        }
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (subBucket - HALF_SUB_BUCKET_COUNT);
+    }
+
+    // Get the largest value that falls into a bucket.
+    private static long getHighestValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package io.github.tommiri.events.loadtest;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Load test running a mix of list, add and delete commands from many
+ * concurrent clients against one events file.
+ * <p>
+ * Each client runs on its own thread and records the latency of every
+ * command in its own histograms, which are merged once the test ends.
+ * The report gives the throughput and latency percentiles of each
+ * operation, so that slower loading or saving of events shows up as
+ * higher tail latencies.
+ */
+public class LoadTest {
+    private final LoadTestOptions options;
+
+    /**
+     * Constructs a load test.
+     *
+     * @param options options of the test
+     */
+    public LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Main program of the load test.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String... args) {
+        LoadTestOptions options = new LoadTestOptions();
+        JCommander jc = JCommander.newBuilder().addObject(options).build();
+        jc.setProgramName("mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=io.github.tommiri.events.loadtest.LoadTest -Dexec.args=...");
+
+        try {
+            jc.parse(args);
+            if (options.help) {
+                jc.usage();
+                return;
+            }
+            options.validateOptions();
+        } catch (ParameterException e) {
+            System.err.println(e.getMessage());
+            jc.usage();
+            System.exit(-1);
+        }
+
+        try {
+            new LoadTest(options).run();
+        } catch (IOException ioe) {
+            System.err.println("ERROR: Load test failed: " + ioe.getMessage());
+            System.exit(-1);
+        } catch (InterruptedException e) {
+            System.err.println("ERROR: Load test was interrupted");
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Runs the test in a temporary home directory and writes the report.
+     *
+     * @throws IOException          if creating the events file or writing the report fails
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public void run() throws IOException, InterruptedException {
+        Path home = Files.createTempDirectory("events-loadtest");
+        try {
+            Path eventsPath = home.resolve(".events").resolve("events.csv");
+            Files.createDirectories(eventsPath.getParent());
+            Workload.writeEvents(eventsPath, options.events, new Random(options.seed));
+
+            Client client = options.mode.equals("in-process")
+                    ? new InProcessClient(home)
+                    : new SubprocessClient(Paths.get(options.jar), options.java_options, home);
+
+            System.out.println("Running " + options.threads + " client(s) for " + options.duration + " s...");
+            List<ClientResult> results = runClients(client, new Workload(options.getMix()));
+
+            String report = createReport(results);
+            Files.writeString(Paths.get(options.report), report, StandardCharsets.UTF_8);
+            System.out.print(report);
+            System.out.println("Report written to " + options.report);
+        } finally {
+            deleteDirectory(home);
+        }
+    }
+
+    // Run the clients on their own threads until the test duration has passed
+    private List<ClientResult> runClients(Client client, Workload workload) throws InterruptedException {
+        long deadline = System.nanoTime() + options.duration * 1_000_000_000L;
+        long startTime = System.nanoTime();
+
+        List<ClientResult> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < options.threads; i++) {
+            ClientResult result = new ClientResult();
+            Random random = new Random(options.seed + i + 1);
+            Thread thread = new Thread(() -> runClient(client, workload, random, deadline, result),
+                    "load-client-" + i);
+            results.add(result);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        for (ClientResult result : results) {
+            result.elapsedNanos = elapsed;
+        }
+        return results;
+    }
+
+    private void runClient(Client client, Workload workload, Random random, long deadline, ClientResult result) {
+        while (System.nanoTime() < deadline) {
+            Operation operation = workload.nextOperation(random);
+            String[] args = workload.createArgs(operation, random);
+
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                client.execute(args);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failed = true;
+            }
+            long latency = System.nanoTime() - start;
+
+            // Failed commands are counted, but kept out of the latencies
+            if (failed) {
+                result.errors.merge(operation, 1L, Long::sum);
+            } else {
+                result.histograms.computeIfAbsent(operation, key -> new LatencyHistogram()).record(latency);
+            }
+
+            if (options.think_time > 0) {
+                try {
+                    Thread.sleep(options.think_time);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Merge the results of all clients into a report
+    private String createReport(List<ClientResult> results) {
+        Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        LatencyHistogram all = new LatencyHistogram();
+        for (ClientResult result : results) {
+            result.histograms.forEach((operation, histogram) -> {
+                histograms.computeIfAbsent(operation, key -> new LatencyHistogram()).add(histogram);
+                all.add(histogram);
+            });
+            result.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+        }
+        double seconds = results.isEmpty() ? 0 : results.get(0).elapsedNanos / 1e9;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Events load test report\n");
+        sb.append("Date:        ").append(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)).append('\n');
+        sb.append("Mode:        ").append(options.mode).append(", ").append(options.threads).append(" client(s)\n");
+        sb.append("Events:      ").append(options.events).append(" at start\n");
+        sb.append("Mix:         ").append(options.getMix().entrySet().stream()
+                .map(entry -> entry.getKey().getName() + "=" + entry.getValue())
+                .collect(Collectors.joining(", "))).append('\n');
+        sb.append("Think time:  ").append(options.think_time).append(" ms\n");
+        sb.append(String.format(Locale.ROOT, "Duration:    %.1f s%n%n", seconds));
+
+        sb.append(String.format(Locale.ROOT, "%-10s %8s %7s %10s %9s %9s %9s %9s %9s%n", "Operation", "Count",
+                "Errors", "Ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"));
+        for (Operation operation : Operation.values()) {
+            if (histograms.containsKey(operation) || errors.containsKey(operation)) {
+                appendRow(sb, operation.getName(), histograms.getOrDefault(operation, new LatencyHistogram()),
+                        errors.getOrDefault(operation, 0L), seconds);
+            }
+        }
+        appendRow(sb, "all", all, errors.values().stream().mapToLong(Long::longValue).sum(), seconds);
+        return sb.toString();
+    }
+
+    private static void appendRow(StringBuilder sb, String name, LatencyHistogram histogram, long errors,
+                                  double seconds) {
+        sb.append(String.format(Locale.ROOT, "%-10s %8d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+                histogram.getCount(), errors, seconds > 0 ? histogram.getCount() / seconds : 0,
+                histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(90) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6, histogram.getValueAtPercentile(99.9) / 1e6,
+                histogram.getMax() / 1e6));
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // Latencies and errors recorded by one client
+    private static class ClientResult {
+        private final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        private long elapsedNanos;
+    }
+}
\ No newline at end of file
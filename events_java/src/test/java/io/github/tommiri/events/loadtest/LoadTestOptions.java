@@ -0,0 +1,91 @@
+package io.github.tommiri.events.loadtest;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Options of the load test
+ */
+public class LoadTestOptions {
+    @Parameter(names = {"-h", "--help"}, help = true, description = "Display usage")
+    public boolean help;
+    @Parameter(names = "--mode", description = "Run commands one at a time in this process (in-process), or as " +
+            "separate invocations of the program (subprocess)")
+    public String mode = "subprocess";
+    @Parameter(names = "--jar", description = "Program to run in subprocess mode")
+    public String jar = "target/Events.jar";
+    @Parameter(names = "--java-option", description = "Option passed to java in subprocess mode, can be given more " +
+            "than once")
+    public List<String> java_options = new ArrayList<>();
+    @Parameter(names = "--threads", description = "Number of concurrent clients")
+    public int threads = 8;
+    @Parameter(names = "--duration", description = "Number of seconds to run the test for")
+    public int duration = 30;
+    @Parameter(names = "--events", description = "Number of events in the events file at the start")
+    public int events = 10000;
+    @Parameter(names = "--mix", description = "Relative weights of the operations, such as " +
+            "\"list=70,add=20,delete=10\"")
+    public String mix = "list=70,add=20,delete=10";
+    @Parameter(names = "--think-time", description = "Milliseconds each client waits between operations")
+    public int think_time = 0;
+    @Parameter(names = "--seed", description = "Seed of the random generated data and operations")
+    public long seed = 42;
+    @Parameter(names = "--report", description = "File to write the report to")
+    public String report = "loadtest-report.txt";
+
+    /**
+     * Method for validating user input for the load test
+     *
+     * @throws ParameterException user input is invalid
+     */
+    public void validateOptions() throws ParameterException {
+        if (!mode.equals("in-process") && !mode.equals("subprocess")) {
+            throw new ParameterException("\"--mode\" must be \"in-process\" or \"subprocess\"!");
+        }
+        if (threads <= 0 || duration <= 0) {
+            throw new ParameterException("\"--threads\" and \"--duration\" must be greater than zero!");
+        }
+        if (events < 0 || think_time < 0) {
+            throw new ParameterException("\"--events\" and \"--think-time\" cannot be negative!");
+        }
+        getMix();
+    }
+
+    /**
+     * Method for parsing the operation mix
+     *
+     * @return the weight of each operation
+     * @throws ParameterException if the mix is invalid
+     */
+    public Map<Operation, Integer> getMix() throws ParameterException {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.split("=");
+            Operation operation = null;
+            int weight = -1;
+            if (pair.length == 2) {
+                try {
+                    operation = Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+                    weight = Integer.parseInt(pair[1].trim());
+                } catch (IllegalArgumentException e) {
+                    // Reported below
+                }
+            }
+            if (operation == null || weight < 0) {
+                throw new ParameterException("Invalid operation weight \"" + part + "\" in \"--mix\"!");
+            }
+            weights.put(operation, weight);
+        }
+
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new ParameterException("\"--mix\" must give some operation a weight!");
+        }
+        return weights;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package io.github.tommiri.events.loadtest;
+
+import java.util.Locale;
+
+/**
+ * Operations run by the load test.
+ */
+public enum Operation {
+    /**
+     * Lists events with one of several filters.
+     */
+    LIST,
+    /**
+     * Adds a new event.
+     */
+    ADD,
+    /**
+     * Deletes an event added by an earlier operation.
+     */
+    DELETE;
+
+    /**
+     * Gets the name of the command of the operation.
+     *
+     * @return the name in lowercase
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
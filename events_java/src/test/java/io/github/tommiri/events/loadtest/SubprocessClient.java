@@ -0,0 +1,48 @@
+package io.github.tommiri.events.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Client that runs each command as a separate invocation of the
+ * program, like users running it from the shell at the same time.
+ */
+public class SubprocessClient implements Client {
+    private final List<String> command;
+
+    /**
+     * Constructs a client.
+     *
+     * @param jar         the path to the program
+     * @param javaOptions options to pass to java
+     * @param home        home directory of the program, containing .events/events.csv
+     */
+    public SubprocessClient(Path jar, List<String> javaOptions, Path home) {
+        this.command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(javaOptions);
+        command.add("-Duser.home=" + home);
+        command.add("-jar");
+        command.add(jar.toString());
+    }
+
+    @Override
+    public void execute(String[] args) throws IOException, InterruptedException {
+        List<String> fullCommand = new ArrayList<>(command);
+        fullCommand.addAll(Arrays.asList(args));
+
+        // Only the time taken matters, not the output
+        Process process = new ProcessBuilder(fullCommand)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IOException(String.join(" ", args) + " exited with code " + exitCode);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package io.github.tommiri.events.loadtest;
+
+import io.github.tommiri.events.event.Event;
+import io.github.tommiri.events.event.EventWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates the events file and the commands run by the load test.
+ * <p>
+ * Commands are generated as command line arguments, so that the same
+ * workload can be run in this process or by starting the program.
+ * Events added by the test have unique descriptions, which delete
+ * commands later use to remove them again, keeping the size of the
+ * events file roughly stable.
+ */
+public class Workload {
+    private static final int CATEGORY_COUNT = 10;
+    private static final int TOPIC_COUNT = 50;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2000, 1, 1);
+    private static final int DAY_COUNT = 365 * 30;
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final AtomicLong nextId = new AtomicLong();
+    private final ConcurrentLinkedQueue<Long> addedIds = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs a workload.
+     *
+     * @param mix relative weights of the operations
+     */
+    public Workload(Map<Operation, Integer> mix) {
+        this.operations = mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Writes an events file with random events, sorted by date
+     * like files saved by the program.
+     *
+     * @param eventsPath the path to the events file
+     * @param count      number of events to write
+     * @param random     source of randomness
+     * @throws IOException if writing the file fails
+     */
+    public static void writeEvents(Path eventsPath, int count, Random random) throws IOException {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new Event(randomDate(random), randomCategory(random),
+                    "Event " + i + " about topic" + random.nextInt(TOPIC_COUNT)));
+        }
+        Collections.sort(events);
+
+        try (EventWriter writer = new EventWriter(Files.newBufferedWriter(eventsPath, StandardCharsets.UTF_8))) {
+            for (Event event : events) {
+                writer.write(event);
+            }
+        }
+    }
+
+    /**
+     * Picks the next operation to run according to the mix.
+     *
+     * @param random source of randomness
+     * @return the operation
+     */
+    public Operation nextOperation(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < operations.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    /**
+     * Creates the command line arguments of an operation.
+     *
+     * @param operation the operation
+     * @param random    source of randomness
+     * @return the arguments
+     */
+    public String[] createArgs(Operation operation, Random random) {
+        return switch (operation) {
+            case LIST -> createListArgs(random);
+            case ADD -> {
+                long id = nextId.getAndIncrement();
+                addedIds.add(id);
+                yield new String[]{"add", "--date", randomDate(random).toString(), "--category",
+                        randomCategory(random), "--description", getDescription(id)};
+            }
+            case DELETE -> {
+                // Deleting an event that was never added still reads and writes the file
+                Long id = addedIds.poll();
+                yield new String[]{"delete", "--description", getDescription(id == null ? -1 : id)};
+            }
+        };
+    }
+
+    // Pick one of the common kinds of list filters
+    private static String[] createListArgs(Random random) {
+        LocalDate date = randomDate(random);
+        return switch (random.nextInt(5)) {
+            case 0 -> new String[]{"list", "--today"};
+            case 1 -> new String[]{"list", "--date", date.toString()};
+            case 2 -> new String[]{"list", "--after-date", date.toString(), "--before-date",
+                    date.plusDays(30).toString()};
+            case 3 -> new String[]{"list", "--categories", randomCategory(random)};
+            default -> new String[]{"list", "--search", "topic" + random.nextInt(TOPIC_COUNT)};
+        };
+    }
+
+    // The trailing period keeps descriptions from being prefixes of each other
+    private static String getDescription(long id) {
+        return "load-" + id + ".";
+    }
+
+    private static LocalDate randomDate(Random random) {
+        return FIRST_DATE.plusDays(random.nextInt(DAY_COUNT));
+    }
+
+    private static String randomCategory(Random random) {
+        return "cat" + random.nextInt(CATEGORY_COUNT);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package io.github.tommiri.events.query;
+
+import io.github.tommiri.events.event.DateRange;
+import io.github.tommiri.events.event.Event;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class StreamingFilterTest {
+    private static final String HEADER = "\"date\",\"category\",\"description\"\n";
+
+    @Test
+    void runPassesEventsToSinksInInputOrder() throws IOException {
+        StringBuilder input = new StringBuilder(HEADER);
+        for (int day = 1; day <= 28; day++) {
+            for (int i = 0; i < 100; i++) {
+                input.append("\"2020-02-").append(String.format("%02d", day)).append("\",\"c\",\"e").append(i).append("\"\n");
+            }
+        }
+        StreamingFilter filter = new StreamingFilter(new QueryNode.DateIn(
+                new DateRange(LocalDate.of(2020, 2, 10), LocalDate.of(2020, 2, 20))));
+
+        List<Event> matching = new ArrayList<>();
+        List<Event> other = new ArrayList<>();
+        filter.run(new StringReader(input.toString()), matching::add, other::add);
+
+        assertEquals(2800, filter.getReadCount());
+        assertEquals(1100, filter.getMatchCount());
+        assertEquals(1100, matching.size());
+        assertEquals(LocalDate.of(2020, 2, 10), matching.get(0).getDate());
+        assertEquals(1700, other.size());
+        assertEquals(LocalDate.of(2020, 2, 28), other.get(other.size() - 1).getDate());
+    }
+
+    @Test
+    void runReportsRuntimeFailureOfReaderThread() {
+        Reader input = new FailingReader(HEADER + "\"2020-01-01\",\"c\",\"e\"\n", new IllegalStateException("broken"));
+        StreamingFilter filter = new StreamingFilter(new QueryNode.Constant(true));
+
+        IOException exception = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IOException.class, () -> filter.run(input, event -> {
+                }, null)));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void runRethrowsIOExceptionOfReaderThread() {
+        IOException failure = new IOException("disk on fire");
+        Reader input = new FailingReader(HEADER + "\"2020-01-01\",\"c\",\"e\"\n", failure);
+        StreamingFilter filter = new StreamingFilter(new QueryNode.Constant(true));
+
+        IOException exception = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(IOException.class, () -> filter.run(input, event -> {
+                }, null)));
+        assertEquals(failure, exception);
+    }
+
+    // Reader that fails with the given exception once its text has been read
+    private static final class FailingReader extends Reader {
+        private final StringReader text;
+        private final Exception failure;
+
+        FailingReader(String text, Exception failure) {
+            this.text = new StringReader(text);
+            this.failure = failure;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count = text.read(buffer, offset, length);
+            if (count >= 0) {
+                return count;
+            }
+            if (failure instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw (RuntimeException) failure;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
\ No newline at end of file
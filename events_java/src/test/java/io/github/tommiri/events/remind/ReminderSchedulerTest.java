@@ -0,0 +1,123 @@
+package io.github.tommiri.events.remind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReminderSchedulerTest {
+    private static final String HEADER = "\"date\",\"category\",\"description\"\n";
+
+    @TempDir
+    Path directory;
+
+    // Receives the status lines of the scheduler
+    private final ByteArrayOutputStream status = new ByteArrayOutputStream();
+
+    @Test
+    void reloadSchedulesAndCancelsChangedEvents() throws IOException {
+        Path eventsPath = directory.resolve("events.csv");
+        SettableClock clock = new SettableClock(Instant.parse("2030-01-01T12:00:00Z"));
+        ReminderScheduler scheduler = createScheduler(eventsPath, clock, new ArrayList<>());
+
+        writeEvents(eventsPath, "\"2030-01-05\",\"work\",\"Meeting\"", "\"2030-01-06\",\"home\",\"Party\"");
+        scheduler.reload();
+        assertEquals(4, scheduler.getScheduledCount());
+
+        writeEvents(eventsPath, "\"2030-01-06\",\"home\",\"Party\"");
+        scheduler.reload();
+        assertEquals(2, scheduler.getScheduledCount());
+        assertTrue(status.toString(StandardCharsets.UTF_8)
+                .endsWith("Loaded events: 0 added, 1 removed, 2 reminder(s) scheduled" + System.lineSeparator()));
+    }
+
+    @Test
+    void reloadDeliversDueReminders() throws IOException {
+        Path eventsPath = directory.resolve("events.csv");
+        SettableClock clock = new SettableClock(Instant.parse("2030-01-01T12:00:00Z"));
+        List<Reminder> delivered = new ArrayList<>();
+        ReminderScheduler scheduler = createScheduler(eventsPath, clock, delivered);
+
+        writeEvents(eventsPath, "\"2030-01-03\",\"work\",\"Meeting\"");
+        scheduler.reload();
+        assertEquals(2, scheduler.getScheduledCount());
+
+        clock.instant = Instant.parse("2030-01-02T11:00:00Z");
+        scheduler.reload();
+        assertEquals(1, delivered.size());
+        assertEquals(Duration.ofDays(1), delivered.get(0).leadTime());
+        assertEquals(1, scheduler.getScheduledCount());
+    }
+
+    @Test
+    void reloadSurvivesClockSetBack() throws IOException {
+        Path eventsPath = directory.resolve("events.csv");
+        SettableClock clock = new SettableClock(Instant.parse("2030-01-01T12:00:00Z"));
+        List<Reminder> delivered = new ArrayList<>();
+        ReminderScheduler scheduler = createScheduler(eventsPath, clock, delivered);
+
+        writeEvents(eventsPath);
+        scheduler.reload();
+
+        // The day ahead reminder of the first event is due between the set back
+        // time and the time already reached, so only its hour ahead one is scheduled
+        clock.instant = Instant.parse("2030-01-01T10:00:00Z");
+        writeEvents(eventsPath, "\"2030-01-02\",\"work\",\"Meeting\"", "\"2030-01-03\",\"home\",\"Party\"");
+        scheduler.reload();
+        assertEquals(3, scheduler.getScheduledCount());
+        assertTrue(delivered.isEmpty());
+    }
+
+    private ReminderScheduler createScheduler(Path eventsPath, Clock clock, List<Reminder> delivered) {
+        return new ReminderScheduler(eventsPath, List.of(Duration.ofHours(1), Duration.ofDays(1)),
+                LocalTime.of(11, 0), delivered::add, new PrintStream(status, true, StandardCharsets.UTF_8), clock);
+    }
+
+    private static void writeEvents(Path eventsPath, String... lines) throws IOException {
+        StringBuilder builder = new StringBuilder(HEADER);
+        for (String line : lines) {
+            builder.append(line).append('\n');
+        }
+        Files.writeString(eventsPath, builder);
+    }
+
+    // Clock that stays at a set instant until set again
+    private static final class SettableClock extends Clock {
+        private Instant instant;
+
+        SettableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package io.github.tommiri.events.remind;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    private static final long START = 1_700_000_000L;
+
+    @Test
+    void advanceExpiresTimersInOrderOfDeadlines() {
+        TimingWheel<Long> wheel = new TimingWheel<>(START);
+        for (long offset : new long[]{5, 1, 64, 3, 4096, 2}) {
+            wheel.schedule(START + offset, START + offset);
+        }
+
+        List<Long> expired = new ArrayList<>();
+        wheel.advance(START + 64, expired::add);
+
+        assertEquals(List.of(START + 1, START + 2, START + 3, START + 5, START + 64), expired);
+        assertEquals(START + 64, wheel.getCurrentTick());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void advanceExpiresTimersOfTheTargetTickOnly() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        wheel.schedule(START + 10, "a");
+        wheel.schedule(START + 11, "b");
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(START + 9, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(START + 10, expired::add);
+        assertEquals(List.of("a"), expired);
+    }
+
+    @Test
+    void cascadeMovesFarTimersDownToExpireOnTime() {
+        TimingWheel<Long> wheel = new TimingWheel<>(0);
+        // Deadlines at the top of several levels, and ones crossing a level boundary
+        long[] deadlines = {63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 1L << 30, (1L << 36) + 7};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (long deadline : deadlines) {
+            List<Long> expired = new ArrayList<>();
+            wheel.advance(deadline - 1, expired::add);
+            assertTrue(expired.isEmpty(), "expired before " + deadline);
+            wheel.advance(deadline, expired::add);
+            assertEquals(List.of(deadline), expired);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void nextTickIsNeverAfterTheEarliestDeadline() {
+        TimingWheel<Long> wheel = new TimingWheel<>(START);
+        assertEquals(Long.MAX_VALUE, wheel.nextTick());
+
+        wheel.schedule(START + 100_000, START + 100_000);
+        long nextTick = wheel.nextTick();
+        assertTrue(nextTick > START && nextTick <= START + 100_000);
+
+        wheel.schedule(START + 7, START + 7);
+        assertEquals(START + 7, wheel.nextTick());
+    }
+
+    @Test
+    void cancelRemovesScheduledTimersOnly() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        TimingWheel.Timer<String> cancelled = wheel.schedule(START + 1, "cancelled");
+        TimingWheel.Timer<String> kept = wheel.schedule(START + 1, "kept");
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(cancelled.isScheduled());
+        assertFalse(wheel.cancel(cancelled));
+        assertEquals(1, wheel.size());
+
+        List<String> expired = new ArrayList<>();
+        wheel.advance(START + 1, expired::add);
+        assertEquals(List.of("kept"), expired);
+        assertFalse(kept.isScheduled());
+        assertFalse(wheel.cancel(kept));
+    }
+
+    @Test
+    void scheduleRejectsDeadlinesNotAfterTheCurrentTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        assertThrows(IllegalArgumentException.class, () -> wheel.schedule(START, "now"));
+        assertThrows(IllegalArgumentException.class, () -> wheel.schedule(START - 1, "past"));
+    }
+
+    @Test
+    void matchesSortedListOfDeadlines() {
+        Random random = new Random(42);
+        long[] scheduleSpans = {10, 1000, 100_000, 50_000_000L, 3_000_000_000L};
+        long[] advanceSpans = {5, 5000, 80_000_000L};
+
+        for (int round = 0; round < 100; round++) {
+            TimingWheel<Long> wheel = new TimingWheel<>(START + random.nextInt(1 << 20));
+            Map<TimingWheel.Timer<Long>, Long> scheduled = new HashMap<>();
+            List<TimingWheel.Timer<Long>> timers = new ArrayList<>();
+
+            for (int step = 0; step < 400; step++) {
+                int operation = random.nextInt(10);
+                if (operation < 5) {
+                    long span = scheduleSpans[random.nextInt(scheduleSpans.length)];
+                    long deadline = wheel.getCurrentTick() + 1 + (long) (random.nextDouble() * span);
+                    TimingWheel.Timer<Long> timer = wheel.schedule(deadline, deadline);
+                    scheduled.put(timer, deadline);
+                    timers.add(timer);
+                } else if (operation < 7 && !timers.isEmpty()) {
+                    TimingWheel.Timer<Long> timer = timers.get(random.nextInt(timers.size()));
+                    assertEquals(scheduled.remove(timer) != null, wheel.cancel(timer));
+                } else {
+                    long span = advanceSpans[random.nextInt(advanceSpans.length)];
+                    long target = wheel.getCurrentTick() + (long) (random.nextDouble() * span);
+                    long earliest = scheduled.values().stream().mapToLong(Long::longValue).min().orElse(Long.MAX_VALUE);
+                    assertTrue(wheel.nextTick() <= earliest);
+
+                    List<Long> expected = new ArrayList<>();
+                    Iterator<Long> iterator = scheduled.values().iterator();
+                    while (iterator.hasNext()) {
+                        long deadline = iterator.next();
+                        if (deadline <= target) {
+                            expected.add(deadline);
+                            iterator.remove();
+                        }
+                    }
+                    Collections.sort(expected);
+
+                    List<Long> expired = new ArrayList<>();
+                    wheel.advance(target, expired::add);
+                    assertEquals(expected, expired);
+                    assertEquals(target, wheel.getCurrentTick());
+                }
+                assertEquals(scheduled.size(), wheel.size());
+            }
+        }
+    }
+}
\ No newline at end of file